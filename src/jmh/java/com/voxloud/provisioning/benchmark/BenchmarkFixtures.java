@@ -0,0 +1,129 @@
+package com.voxloud.provisioning.benchmark;
+
+import com.voxloud.provisioning.cache.DeviceMembershipFilter;
+import com.voxloud.provisioning.cache.RenderedConfigSnapshot;
+import com.voxloud.provisioning.config.ProvisioningProperties;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.metrics.ProvisioningMetrics;
+import com.voxloud.provisioning.service.ConfigCompressor;
+import com.voxloud.provisioning.service.DeviceConfigRenderer;
+import com.voxloud.provisioning.settings.LayeredSettings;
+import com.voxloud.provisioning.strategy.ProvisioningStrategy;
+import com.voxloud.provisioning.strategy.ProvisioningStrategyFactory;
+import com.voxloud.provisioning.strategy.TemplateProvisioningStrategy;
+import com.voxloud.provisioning.template.ConfigTemplate;
+import com.voxloud.provisioning.template.ProvisioningSettings;
+import com.voxloud.provisioning.util.OverrideFragmentParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the provisioning components outside of a Spring context, wired the same way as
+ * {@code ProvisioningConfig} does from {@code application.properties}.
+ */
+public final class BenchmarkFixtures {
+    static final Map<String, String> DEFAULTS =
+            Map.of("domain", "sip.voxloud.com", "port", "5060", "codecs", "G711,G729,OPUS");
+    static final ProvisioningSettings SETTINGS = new ProvisioningSettings(DEFAULTS);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A membership filter that is never built, so every MAC address reaches the lookup.
+     */
+    static DeviceMembershipFilter membershipFilter() {
+        return new DeviceMembershipFilter(null, null, new SimpleMeterRegistry(), false, 0, 0.01,
+                Duration.ofSeconds(5), Duration.ofHours(1), 0, Duration.ofMinutes(10));
+    }
+
+    static RenderedConfigSnapshot snapshot() {
+        return new RenderedConfigSnapshot(null, null, null, null, new SimpleMeterRegistry(), false,
+                Path.of("snapshot.bin"), Duration.ofMinutes(10));
+    }
+
+    static OverrideFragmentParser overrideFragmentParser() {
+        return new OverrideFragmentParser();
+    }
+
+    static ProvisioningStrategyFactory strategyFactory(OverrideFragmentParser parser) {
+        return new ProvisioningStrategyFactory(List.of(
+                strategy(Device.DeviceModel.DESK, "classpath:templates/desk.properties",
+                        "text/plain;charset=UTF-8", "properties", parser),
+                strategy(Device.DeviceModel.CONFERENCE, "classpath:templates/conference.json",
+                        "application/json", "json", parser)));
+    }
+
+    static DeviceConfigRenderer renderer(ProvisioningStrategyFactory factory) {
+        LayeredSettings settings = new LayeredSettings(DEFAULTS, new ProvisioningProperties.Settings(),
+                event -> { }, null);
+        return new DeviceConfigRenderer(factory, ProvisioningMetrics.noop(), settings,
+                new ConfigCompressor(true, 6));
+    }
+
+    static Device device(String macAddress, Device.DeviceModel model, String overrideFragment) {
+        Device device = new Device();
+        device.setMacAddress(macAddress != null ? MacAddress.parse(macAddress) : null);
+        device.setModel(model);
+        device.setUsername("john");
+        device.setPassword("doe");
+        device.setOverrideFragment(overrideFragment);
+        return device;
+    }
+
+    /**
+     * An override fragment of {@code keys} entries, the first three of which are the settings the
+     * templates actually read.
+     */
+    static String overrideFragment(FragmentFormat format, int keys) {
+        StringBuilder fragment = new StringBuilder(format == FragmentFormat.JSON ? "{" : "");
+        for (int i = 0; i < keys; i++) {
+            String key = switch (i) {
+                case 0 -> "domain";
+                case 1 -> "port";
+                case 2 -> "timeout";
+                default -> "custom.key" + i;
+            };
+            String value = switch (i) {
+                case 0 -> "sip.anotherdomain.com";
+                case 1 -> "5161";
+                case 2 -> "10";
+                default -> "value-" + i;
+            };
+            if (format == FragmentFormat.JSON) {
+                fragment.append(i == 0 ? "" : ",").append('"').append(key).append("\":\"").append(value).append('"');
+            } else {
+                fragment.append(key).append('=').append(value).append('\n');
+            }
+        }
+        return fragment.append(format == FragmentFormat.JSON ? "}" : "").toString();
+    }
+
+    public enum FragmentFormat {
+        JSON, PROPERTIES
+    }
+
+    private static ProvisioningStrategy strategy(Device.DeviceModel model, String location, String contentType,
+                                                 String fileExtension, OverrideFragmentParser parser) {
+        ConfigTemplate template = ConfigTemplate.compile(readTemplate(location));
+        return new TemplateProvisioningStrategy(model, template, contentType, fileExtension, parser);
+    }
+
+    private static String readTemplate(String location) {
+        try (InputStream in = new DefaultResourceLoader().getResource(location).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
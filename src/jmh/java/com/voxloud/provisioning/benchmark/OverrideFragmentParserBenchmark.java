@@ -0,0 +1,64 @@
+package com.voxloud.provisioning.benchmark;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.util.OverrideFragment;
+import com.voxloud.provisioning.util.OverrideFragmentParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Override fragment parsing for both fragment formats and several sizes. {@link #parse} measures a
+ * cold parse of every entry (a device without a MAC address bypasses the parsed-fragment cache),
+ * {@link #parseTemplateKeys} a cold parse extracting only the settings a template reads, and
+ * {@link #cachedLookup} the steady state of a device whose fragment has already been parsed.
+ */
+@Fork(2)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class OverrideFragmentParserBenchmark {
+    @Param({"JSON", "PROPERTIES"})
+    public BenchmarkFixtures.FragmentFormat format;
+
+    @Param({"3", "20", "200"})
+    public int keys;
+
+    private static final Set<String> TEMPLATE_KEYS = Set.of("domain", "port", "codecs", "timeout");
+
+    private OverrideFragmentParser parser;
+    private Device uncachedDevice;
+    private Device cachedDevice;
+
+    @Setup
+    public void setUp() {
+        parser = BenchmarkFixtures.overrideFragmentParser();
+        String fragment = BenchmarkFixtures.overrideFragment(format, keys);
+        uncachedDevice = BenchmarkFixtures.device(null, Device.DeviceModel.DESK, fragment);
+        cachedDevice = BenchmarkFixtures.device("aa-bb-cc-dd-ee-ff", Device.DeviceModel.DESK, fragment);
+        parser.getOverrides(cachedDevice);
+    }
+
+    @Benchmark
+    public Map<String, String> parse() {
+        return parser.parseOverrideFragment(uncachedDevice);
+    }
+
+    @Benchmark
+    public OverrideFragment parseTemplateKeys() {
+        return parser.getOverrides(uncachedDevice, TEMPLATE_KEYS);
+    }
+
+    @Benchmark
+    public OverrideFragment cachedLookup() {
+        return parser.getOverrides(cachedDevice);
+    }
+}
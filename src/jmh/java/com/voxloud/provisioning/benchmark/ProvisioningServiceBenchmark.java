@@ -0,0 +1,82 @@
+package com.voxloud.provisioning.benchmark;
+
+import com.voxloud.provisioning.cache.RenderedConfigCache;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.metrics.ProvisioningMetrics;
+import com.voxloud.provisioning.repository.DeviceLookup;
+import com.voxloud.provisioning.repository.DeviceVersion;
+import com.voxloud.provisioning.service.ProvisioningServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The full {@link ProvisioningServiceImpl#getProvisioningFile} path against an in-memory lookup
+ * stub, so the numbers exclude JDBC. With {@code cached=false} the rendered file is evicted before
+ * every call, which forces a lookup and a render.
+ */
+@Fork(2)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ProvisioningServiceBenchmark {
+    private static final MacAddress MAC_ADDRESS = MacAddress.parse("1a-2b-3c-4d-5e-6f");
+
+    @Param({"DESK", "CONFERENCE"})
+    public Device.DeviceModel model;
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private RenderedConfigCache renderedConfigCache;
+    private ProvisioningServiceImpl provisioningService;
+
+    @Setup
+    public void setUp() {
+        String fragment = BenchmarkFixtures.overrideFragment(model == Device.DeviceModel.CONFERENCE
+                ? BenchmarkFixtures.FragmentFormat.JSON : BenchmarkFixtures.FragmentFormat.PROPERTIES, 3);
+        DeviceLookup deviceLookup = stubLookup(Map.of(MAC_ADDRESS,
+                BenchmarkFixtures.device(MAC_ADDRESS.toString(), model, fragment)));
+        renderedConfigCache = new RenderedConfigCache(100_000, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        provisioningService = new ProvisioningServiceImpl(deviceLookup,
+                BenchmarkFixtures.renderer(BenchmarkFixtures.strategyFactory(BenchmarkFixtures.overrideFragmentParser())),
+                renderedConfigCache, BenchmarkFixtures.snapshot(), BenchmarkFixtures.membershipFilter(),
+                ProvisioningMetrics.noop());
+    }
+
+    @Benchmark
+    public String getProvisioningFile() {
+        if (!cached) {
+            renderedConfigCache.invalidate(MAC_ADDRESS);
+        }
+        return provisioningService.getProvisioningFile(MAC_ADDRESS);
+    }
+
+    /**
+     * A device lookup answering from a map.
+     */
+    private static DeviceLookup stubLookup(Map<MacAddress, Device> devices) {
+        return new DeviceLookup() {
+            @Override
+            public Optional<Device> findDevice(MacAddress macAddress) {
+                return Optional.ofNullable(devices.get(macAddress));
+            }
+
+            @Override
+            public Optional<DeviceVersion> findVersion(MacAddress macAddress) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.voxloud.provisioning.benchmark;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.strategy.ProvisioningStrategy;
+import com.voxloud.provisioning.template.RenderBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering of one configuration file by each model's strategy, with and without an override
+ * fragment. The buffer is reused across invocations, as the renderer's buffer pool does.
+ */
+@Fork(2)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Thread)
+public class ProvisioningStrategyBenchmark {
+    @Param({"DESK", "CONFERENCE"})
+    public Device.DeviceModel model;
+
+    @Param({"false", "true"})
+    public boolean override;
+
+    private ProvisioningStrategy strategy;
+    private Device device;
+    private final RenderBuffer buffer = new RenderBuffer(512);
+
+    @Setup
+    public void setUp() {
+        strategy = BenchmarkFixtures.strategyFactory(BenchmarkFixtures.overrideFragmentParser()).getStrategy(model);
+        String fragment = override
+                ? BenchmarkFixtures.overrideFragment(model == Device.DeviceModel.CONFERENCE
+                        ? BenchmarkFixtures.FragmentFormat.JSON : BenchmarkFixtures.FragmentFormat.PROPERTIES, 3)
+                : null;
+        device = BenchmarkFixtures.device("aa-bb-cc-dd-ee-ff", model, fragment);
+    }
+
+    @Benchmark
+    public int render() {
+        buffer.reset();
+        strategy.render(device, BenchmarkFixtures.SETTINGS, buffer);
+        return buffer.size();
+    }
+}
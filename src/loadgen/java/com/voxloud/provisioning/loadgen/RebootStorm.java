@@ -0,0 +1,198 @@
+package com.voxloud.provisioning.loadgen;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a reboot storm of IP phones against a running provisioning server, e.g. after a site-wide
+ * power cut or firmware push. Run with {@code mvn -Preboot-storm verify -Dstorm.devices=20000}.
+ * <p>
+ * The server is first seeded with {@code storm.devices} synthetic devices through the bulk import
+ * endpoint, alternating both models and override fragments in properties, JSON or no format. Then
+ * every device boots, together with {@code storm.unknown} (10% by default) of phones whose MAC
+ * address is not in the inventory. In the {@code herd} scenario all phones boot at once; in the
+ * {@code staggered} scenario boots are spread uniformly over {@code storm.window} seconds. A phone
+ * answered with 503 or an I/O error retries like firmware does: after the {@code Retry-After}
+ * delay when the server sends one, exponential backoff otherwise, both capped at {@code
+ * storm.retry-cap} seconds and jittered, for up to {@code storm.attempts} attempts. At most {@code
+ * storm.concurrency} requests are in flight at a time.
+ * <p>
+ * The summary is printed and written to {@code target/load-test/storm-<scenario>.txt}. Boot
+ * order and times are derived from {@code storm.random-seed}, so runs are repeatable.
+ */
+public final class RebootStorm {
+    private static final String KNOWN_PREFIX = "02-10";
+    private static final String UNKNOWN_PREFIX = "02-20";
+
+    private final String url = property("storm.url", "http://localhost:8080");
+    private final int devices = Integer.parseInt(property("storm.devices", "20000"));
+    private final String scenario = property("storm.scenario", "herd");
+    private final double unknownRate = Double.parseDouble(property("storm.unknown", "0.10"));
+    private final int windowSeconds = Integer.parseInt(property("storm.window", "30"));
+    private final int concurrency = Integer.parseInt(property("storm.concurrency", "512"));
+    private final int attempts = Integer.parseInt(property("storm.attempts", "5"));
+    private final int retryCapSeconds = Integer.parseInt(property("storm.retry-cap", "30"));
+    private final boolean seed = Boolean.parseBoolean(property("storm.seed", "true"));
+    private final long randomSeed = Long.parseLong(property("storm.random-seed", "42"));
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final StormReport report = new StormReport();
+    private ScheduledThreadPoolExecutor executor;
+    private CountDownLatch finished;
+
+    public static void main(String[] args) throws Exception {
+        new RebootStorm().run();
+    }
+
+    private void run() throws Exception {
+        if (!scenario.equals("herd") && !scenario.equals("staggered")) {
+            throw new IllegalArgumentException("storm.scenario must be herd or staggered, got " + scenario);
+        }
+        if (seed) {
+            seedDevices();
+        }
+
+        int unknown = (int) Math.round(devices * unknownRate / (1 - unknownRate));
+        List<String> phones = new ArrayList<>(devices + unknown);
+        for (int i = 0; i < devices; i++) {
+            phones.add(macAddress(KNOWN_PREFIX, i));
+        }
+        for (int i = 0; i < unknown; i++) {
+            phones.add(macAddress(UNKNOWN_PREFIX, i));
+        }
+        Random random = new Random(randomSeed);
+        Collections.shuffle(phones, random);
+
+        executor = new ScheduledThreadPoolExecutor(concurrency);
+        finished = new CountDownLatch(phones.size());
+        long start = System.nanoTime();
+        for (String phone : phones) {
+            long bootDelay = scenario.equals("herd") ? 0 : (long) (random.nextDouble() * windowSeconds * 1000);
+            executor.schedule(() -> boot(phone, 1), bootDelay, TimeUnit.MILLISECONDS);
+        }
+        finished.await();
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        String summary = report.summarize(scenario, devices, unknown, start, elapsed);
+        System.out.print(summary);
+        Path output = Path.of("target", "load-test", "storm-" + scenario + ".txt");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, summary);
+    }
+
+    private void boot(String macAddress, int attempt) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/v1/provisioning/" + macAddress))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+        long sent = System.nanoTime();
+        int status;
+        String retryAfter = null;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            status = response.statusCode();
+            retryAfter = response.headers().firstValue("Retry-After").orElse(null);
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished.countDown();
+            return;
+        }
+        long received = System.nanoTime();
+        report.record(status, received - sent);
+
+        if (status == 200) {
+            report.provisioned(received);
+        } else if (status == 404) {
+            // Unknown phones keep failing; firmware would retry much later, outside the storm.
+        } else if (attempt < attempts) {
+            report.retried();
+            executor.schedule(() -> boot(macAddress, attempt + 1), retryDelay(attempt, retryAfter),
+                    TimeUnit.MILLISECONDS);
+            return;
+        } else {
+            report.abandoned();
+        }
+        finished.countDown();
+    }
+
+    /**
+     * Delay before the next attempt in milliseconds: the server's {@code Retry-After} if present,
+     * otherwise 1s doubled per attempt, capped and with equal jitter so that retries of phones
+     * rejected together spread out.
+     */
+    private long retryDelay(int attempt, String retryAfter) {
+        long delay = 1000L << Math.min(attempt - 1, 16);
+        if (retryAfter != null) {
+            try {
+                delay = Long.parseLong(retryAfter.trim()) * 1000;
+            } catch (NumberFormatException e) {
+                // An HTTP date; fall back to backoff.
+            }
+        }
+        delay = Math.min(delay, retryCapSeconds * 1000L);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * Imports the synthetic inventory in one NDJSON request and fails unless every row is accepted.
+     */
+    private void seedDevices() throws IOException, InterruptedException {
+        StringBuilder body = new StringBuilder(devices * 160);
+        for (int i = 0; i < devices; i++) {
+            body.append("{\"macAddress\":\"").append(macAddress(KNOWN_PREFIX, i))
+                    .append("\",\"model\":\"").append(i % 2 == 0 ? "DESK" : "CONFERENCE")
+                    .append("\",\"username\":\"user").append(i)
+                    .append("\",\"password\":\"secret").append(i).append('"');
+            switch (i % 4) {
+                case 1 -> body.append(",\"overrideFragment\":\"domain=sip.storm.example\\nport=5161\"");
+                case 2 -> body.append(",\"overrideFragment\":\"{\\\"port\\\":\\\"5062\\\",\\\"timeout\\\":30}\"");
+                case 3 -> body.append(",\"overrideFragment\":\"# site override\\r\\ntimeout=15\\r\\n\"");
+                default -> {
+                }
+            }
+            if (i % 3 == 0) {
+                body.append(",\"groupName\":\"site-").append(i % 7).append('"');
+            }
+            body.append("}\n");
+        }
+
+        long start = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/api/v1/devices/import"))
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        String[] lines = response.body().split("\n");
+        String last = lines[lines.length - 1];
+        if (response.statusCode() != 200 || !last.contains("\"done\":true") || !last.contains("\"failed\":0")) {
+            throw new IllegalStateException("Seeding failed with status " + response.statusCode() + ": " + last);
+        }
+        System.out.printf(Locale.ROOT, "seeded %d devices in %.0fms%n", devices, (System.nanoTime() - start) / 1e6);
+    }
+
+    private static String macAddress(String prefix, int index) {
+        return String.format("%s-%02x-%02x-%02x-%02x", prefix,
+                (index >> 24) & 0xff, (index >> 16) & 0xff, (index >> 8) & 0xff, index & 0xff);
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(name, defaultValue);
+    }
+}
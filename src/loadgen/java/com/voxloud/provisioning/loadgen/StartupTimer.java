@@ -0,0 +1,130 @@
+package com.voxloud.provisioning.loadgen;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from launching the server process to its first successful provisioning
+ * response, for the regular executable jar and for the fast-startup layout (AOT bean definitions, CDS
+ * archive and the {@code fast-startup} Spring profile). Run by {@code mvn -Pfast-startup verify}.
+ * <p>
+ * Each variant is started {@code startup.runs} times on {@code startup.port}; after the first
+ * response the process is stopped again. The summary is printed and written to {@code
+ * startup.report}. With a positive {@code startup.budget-ms} the run fails when the median fast
+ * start takes longer.
+ */
+public final class StartupTimer {
+    private final Path baselineJar = Path.of(property("startup.baseline-jar", "target/provisioning-hw-1.0.jar"));
+    private final Path jar = Path.of(property("startup.jar",
+            "target/fast-startup/provisioning-hw-1.0-fast-startup.jar"));
+    private final Path archive = Path.of(property("startup.archive", "target/fast-startup/application.jsa"));
+    private final Path report = Path.of(property("startup.report", "target/fast-startup/startup-time.txt"));
+    private final int runs = Integer.parseInt(property("startup.runs", "5"));
+    private final long budgetMillis = Long.parseLong(property("startup.budget-ms", "0"));
+    private final int port = Integer.parseInt(property("startup.port", "18090"));
+    private final String macAddress = property("startup.mac-address", "aa-bb-cc-dd-ee-ff");
+    private final Duration timeout = Duration.ofSeconds(Long.parseLong(property("startup.timeout", "60")));
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+    private final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+    public static void main(String[] args) throws Exception {
+        new StartupTimer().run();
+    }
+
+    private void run() throws Exception {
+        long[] baseline = measure("baseline", List.of(java, "-jar", baselineJar.toString(),
+                "--server.port=" + port));
+        List<String> fast = new ArrayList<>(List.of(java));
+        if (Files.exists(archive)) {
+            fast.add("-XX:SharedArchiveFile=" + archive);
+        }
+        fast.addAll(List.of("-Dspring.aot.enabled=true", "-jar", jar.toString(),
+                "--spring.profiles.active=fast-startup", "--server.port=" + port));
+        long[] fastStartup = measure("fast-startup", fast);
+
+        String summary = String.format(Locale.ROOT,
+                "time to first provisioning response over %d runs%n%s%s"
+                        + "cds-archive=%s speedup=%.1fx%n",
+                runs, line("baseline", baseline), line("fast-startup", fastStartup),
+                Files.exists(archive) ? archive : "missing",
+                (double) median(baseline) / Math.max(1, median(fastStartup)));
+        System.out.print(summary);
+        Files.createDirectories(report.toAbsolutePath().getParent());
+        Files.writeString(report, summary);
+
+        if (budgetMillis > 0 && median(fastStartup) > budgetMillis) {
+            throw new IllegalStateException("Median fast start took " + median(fastStartup)
+                    + "ms, over the budget of " + budgetMillis + "ms");
+        }
+    }
+
+    private long[] measure(String variant, List<String> command) throws IOException, InterruptedException {
+        Path log = report.toAbsolutePath().resolveSibling("startup-" + variant + ".log");
+        long[] millis = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            Process process = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            long started = System.nanoTime();
+            try {
+                millis[run] = awaitFirstResponse(process, started, log);
+            } finally {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+        Arrays.sort(millis);
+        return millis;
+    }
+
+    private long awaitFirstResponse(Process process, long started, Path log) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/api/v1/provisioning/" + macAddress))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+        long deadline = started + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Server exited with " + process.exitValue() + ", see " + log);
+            }
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                }
+            } catch (IOException e) {
+                // Not listening yet.
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No provisioning response within " + timeout + ", see " + log);
+    }
+
+    private static String line(String variant, long[] millis) {
+        return String.format(Locale.ROOT, "%s min=%dms median=%dms max=%dms%n", variant,
+                millis[0], median(millis), millis[millis.length - 1]);
+    }
+
+    private static long median(long[] sorted) {
+        return sorted[sorted.length / 2];
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty(name, defaultValue);
+    }
+}
@@ -0,0 +1,95 @@
+package com.voxloud.provisioning.loadgen;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the outcome of every provisioning request of a storm and summarizes them: latency
+ * percentiles, throughput, and how many requests succeeded, were rejected by admission control,
+ * hit an unknown MAC address or failed.
+ */
+final class StormReport {
+    private long[] latencies = new long[1 << 16];
+    private int count;
+
+    private final AtomicInteger ok = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private final AtomicInteger notFound = new AtomicInteger();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger serverErrors = new AtomicInteger();
+    private final AtomicInteger ioErrors = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicInteger provisioned = new AtomicInteger();
+    private final AtomicInteger abandoned = new AtomicInteger();
+    private final AtomicLong lastProvisionedNanos = new AtomicLong();
+
+    /**
+     * Records one response, or an I/O failure when {@code status} is negative.
+     */
+    void record(int status, long latencyNanos) {
+        synchronized (this) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+        if (status < 0) {
+            ioErrors.incrementAndGet();
+        } else if (status == 200) {
+            ok.incrementAndGet();
+        } else if (status == 304) {
+            notModified.incrementAndGet();
+        } else if (status == 404) {
+            notFound.incrementAndGet();
+        } else if (status == 503 || status == 429) {
+            rejected.incrementAndGet();
+        } else {
+            serverErrors.incrementAndGet();
+        }
+    }
+
+    void retried() {
+        retries.incrementAndGet();
+    }
+
+    void provisioned(long atNanos) {
+        provisioned.incrementAndGet();
+        lastProvisionedNanos.accumulateAndGet(atNanos, Math::max);
+    }
+
+    void abandoned() {
+        abandoned.incrementAndGet();
+    }
+
+    /**
+     * @param startNanos  {@link System#nanoTime()} at which the first device booted
+     * @param elapsedNanos time until the last request completed
+     */
+    synchronized String summarize(String scenario, int devices, int unknown, long startNanos, long elapsedNanos) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int errors = serverErrors.get() + ioErrors.get();
+        long lastProvisioned = lastProvisionedNanos.get();
+        return String.format(Locale.ROOT,
+                "scenario=%s devices=%d unknown=%d requests=%d elapsed=%.0fms throughput=%.0f req/s%n"
+                        + "latency p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms%n"
+                        + "responses ok=%d not-modified=%d not-found=%d rejected=%d errors=%d (%.2f%%) retries=%d%n"
+                        + "provisioned=%d abandoned=%d all-provisioned-after=%.0fms%n",
+                scenario, devices, unknown, count, elapsedNanos / 1e6, count / (elapsedNanos / 1e9),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6,
+                ok.get(), notModified.get(), notFound.get(), rejected.get(), errors,
+                count == 0 ? 0 : 100.0 * errors / count, retries.get(),
+                provisioned.get(), abandoned.get(),
+                lastProvisioned == 0 ? 0 : (lastProvisioned - startNanos) / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+}
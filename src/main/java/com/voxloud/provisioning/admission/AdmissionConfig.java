@@ -0,0 +1,45 @@
+package com.voxloud.provisioning.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Admission control in front of the provisioning endpoint, on by default and switched off with
+ * {@code provisioning.admission.enabled=false}.
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+@ConditionalOnProperty(name = "provisioning.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+    @Bean
+    public AdmissionControl admissionControl(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        return new AdmissionControl(properties, meterRegistry);
+    }
+
+    /**
+     * Registered ahead of every other filter but Boot's {@code ForwardedHeaderFilter}, so shed
+     * requests cost as little as possible while the subnet buckets still see the client address
+     * behind a load balancer.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(AdmissionControl admissionControl) {
+        FilterRegistrationBean<AdmissionFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionFilter(admissionControl));
+        registration.addUrlPatterns(AdmissionFilter.PATH_PREFIX + "*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public ReactiveAdmissionFilter reactiveAdmissionFilter(AdmissionControl admissionControl) {
+        return new ReactiveAdmissionFilter(admissionControl);
+    }
+}
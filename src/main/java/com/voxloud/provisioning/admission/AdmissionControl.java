@@ -0,0 +1,192 @@
+package com.voxloud.provisioning.admission;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether a provisioning request is served or shed, before it reaches the controller.
+ * <p>
+ * A request first takes a token from the bucket of its MAC address and from the bucket of its
+ * source subnet, then a processing slot. Only a bounded number of requests wait for a slot, each
+ * for a bounded time. Every check is in memory, so shedding a request never touches the database.
+ */
+public class AdmissionControl {
+    public enum Outcome {
+        ADMITTED, MAC_RATE, SUBNET_RATE, CONCURRENCY
+    }
+
+    private final AdmissionProperties properties;
+    private final TokenBuckets macBuckets;
+    private final TokenBuckets subnetBuckets;
+    private final Semaphore slots;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter[] rejected = new Counter[Outcome.values().length];
+
+    public AdmissionControl(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    AdmissionControl(AdmissionProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.macBuckets = new TokenBuckets(properties.getPerMac(), properties.getMaxTrackedKeys(), nanoClock);
+        this.subnetBuckets = new TokenBuckets(properties.getPerSubnet(), properties.getMaxTrackedKeys(), nanoClock);
+        this.slots = new Semaphore(properties.getMaxConcurrent(), true);
+
+        for (Outcome outcome : Outcome.values()) {
+            if (outcome != Outcome.ADMITTED) {
+                rejected[outcome.ordinal()] = Counter.builder("provisioning.admission.rejected")
+                        .description("Provisioning requests shed by admission control")
+                        .tag("reason", outcome.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+        }
+        Gauge.builder("provisioning.admission.queued", queued, AtomicInteger::get)
+                .description("Provisioning requests waiting for a processing slot")
+                .register(meterRegistry);
+        Gauge.builder("provisioning.admission.in.flight", this, control -> control.inFlight())
+                .description("Provisioning requests being processed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies the per-MAC and per-subnet rate limits. Either argument may be {@code null} when it
+     * is unknown, in which case its limit is skipped.
+     */
+    public Outcome checkRate(MacAddress macAddress, InetAddress remoteAddress) {
+        if (macAddress != null && !macBuckets.tryAcquire(macAddress.toLong())) {
+            return reject(Outcome.MAC_RATE);
+        }
+        if (remoteAddress != null && !subnetBuckets.tryAcquire(subnetKey(remoteAddress))) {
+            return reject(Outcome.SUBNET_RATE);
+        }
+        return Outcome.ADMITTED;
+    }
+
+    /**
+     * Takes a processing slot, waiting in the bounded queue if none is free. Returns {@link
+     * Outcome#CONCURRENCY} if the queue is full or the wait timed out; otherwise the caller must
+     * {@link #release()} the slot.
+     */
+    public Outcome acquire() throws InterruptedException {
+        if (slots.tryAcquire()) {
+            return Outcome.ADMITTED;
+        }
+        if (queued.incrementAndGet() > properties.getMaxQueued()) {
+            queued.decrementAndGet();
+            return reject(Outcome.CONCURRENCY);
+        }
+        try {
+            return slots.tryAcquire(properties.getMaxQueueWait().toNanos(), TimeUnit.NANOSECONDS)
+                    ? Outcome.ADMITTED : reject(Outcome.CONCURRENCY);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * Takes a processing slot without waiting.
+     */
+    public Outcome tryAcquire() {
+        return slots.tryAcquire() ? Outcome.ADMITTED : reject(Outcome.CONCURRENCY);
+    }
+
+    public void release() {
+        slots.release();
+    }
+
+    /**
+     * Seconds a shed client should wait before retrying. The jitter spreads the retries of devices
+     * shed at the same moment, so they do not come back as one wave.
+     */
+    public long retryAfterSeconds() {
+        long jitter = properties.getRetryAfterJitter().toSeconds();
+        return properties.getRetryAfter().toSeconds()
+                + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+    }
+
+    int inFlight() {
+        return properties.getMaxConcurrent() - slots.availablePermits();
+    }
+
+    int queued() {
+        return queued.get();
+    }
+
+    private Outcome reject(Outcome outcome) {
+        rejected[outcome.ordinal()].increment();
+        return outcome;
+    }
+
+    /**
+     * Key of the subnet of {@code address}: the configured IPv4 prefix, or at most the first 64
+     * bits of an IPv6 address. IPv4 keys carry bit 32 so they cannot match an allocated IPv6 prefix.
+     */
+    private long subnetKey(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 4) {
+            long value = ((bytes[0] & 0xffL) << 24) | ((bytes[1] & 0xffL) << 16) | ((bytes[2] & 0xffL) << 8)
+                    | (bytes[3] & 0xffL);
+            return (value & prefixMask(properties.getIpv4PrefixLength(), 32)) | (1L << 32);
+        }
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (bytes[i] & 0xffL);
+        }
+        return value & prefixMask(Math.min(properties.getIpv6PrefixLength(), 64), 64);
+    }
+
+    private static long prefixMask(int prefixLength, int bits) {
+        if (prefixLength <= 0) {
+            return 0;
+        }
+        return (-1L << (bits - Math.min(prefixLength, bits))) & (bits == 64 ? -1L : (1L << bits) - 1);
+    }
+
+    /**
+     * Parses the literal IP address reported by the servlet container without ever falling back to
+     * a DNS lookup. Returns {@code null} if it is not a literal address.
+     */
+    public static InetAddress parseAddress(String address) {
+        if (address == null || address.isEmpty()) {
+            return null;
+        }
+        try {
+            if (address.indexOf(':') >= 0) {
+                return InetAddress.getByName(address);
+            }
+            byte[] bytes = new byte[4];
+            int part = 0;
+            int value = -1;
+            for (int i = 0; i <= address.length(); i++) {
+                char c = i < address.length() ? address.charAt(i) : '.';
+                if (c == '.') {
+                    if (value < 0 || part == 4) {
+                        return null;
+                    }
+                    bytes[part++] = (byte) value;
+                    value = -1;
+                } else if (c >= '0' && c <= '9') {
+                    value = (value < 0 ? 0 : value * 10) + (c - '0');
+                    if (value > 255) {
+                        return null;
+                    }
+                } else {
+                    return null;
+                }
+            }
+            return part == 4 ? InetAddress.getByAddress(bytes) : null;
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+}
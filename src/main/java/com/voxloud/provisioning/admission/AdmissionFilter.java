@@ -0,0 +1,71 @@
+package com.voxloud.provisioning.admission;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Servlet filter applying {@link AdmissionControl} to {@code GET /api/v1/provisioning/{macAddress}}.
+ * Shed requests are answered with 503 Service Unavailable and a jittered {@code Retry-After}.
+ */
+@RequiredArgsConstructor
+public class AdmissionFilter extends OncePerRequestFilter {
+    static final String PATH_PREFIX = "/api/v1/provisioning/";
+    static final String EXPORT = "export";
+    static final byte[] REJECTED = "Too many provisioning requests, retry later".getBytes(StandardCharsets.UTF_8);
+
+    private final AdmissionControl admissionControl;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !HttpMethod.GET.matches(request.getMethod()) || !path.startsWith(PATH_PREFIX)
+                || path.startsWith(EXPORT, PATH_PREFIX.length());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        long macAddress = MacAddress.parseValue(path.substring(path.lastIndexOf('/') + 1));
+        AdmissionControl.Outcome outcome = admissionControl.checkRate(
+                macAddress != MacAddress.INVALID ? MacAddress.of(macAddress) : null,
+                AdmissionControl.parseAddress(request.getRemoteAddr()));
+        if (outcome == AdmissionControl.Outcome.ADMITTED) {
+            try {
+                outcome = admissionControl.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                outcome = AdmissionControl.Outcome.CONCURRENCY;
+            }
+        }
+        if (outcome != AdmissionControl.Outcome.ADMITTED) {
+            reject(response);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            admissionControl.release();
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(admissionControl.retryAfterSeconds()));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setContentLength(REJECTED.length);
+        response.getOutputStream().write(REJECTED);
+    }
+}
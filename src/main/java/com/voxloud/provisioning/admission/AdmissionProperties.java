@@ -0,0 +1,60 @@
+package com.voxloud.provisioning.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "provisioning.admission")
+public class AdmissionProperties {
+    /**
+     * Whether provisioning requests go through admission control at all.
+     */
+    private boolean enabled = true;
+    /**
+     * Requests allowed per device MAC address.
+     */
+    private Bucket perMac = new Bucket(5, Duration.ofSeconds(10));
+    /**
+     * Requests allowed per source subnet, see {@link #ipv4PrefixLength} and {@link #ipv6PrefixLength}.
+     */
+    private Bucket perSubnet = new Bucket(1000, Duration.ofMillis(5));
+    private int ipv4PrefixLength = 24;
+    private int ipv6PrefixLength = 64;
+    /**
+     * Bound on the number of MAC addresses and subnets tracked at once.
+     */
+    private int maxTrackedKeys = 100_000;
+    /**
+     * Requests processed at the same time; further requests wait in a queue.
+     */
+    private int maxConcurrent = 64;
+    /**
+     * Requests allowed to wait for a processing slot. Not used by the reactive runtime, where
+     * requests beyond {@link #maxConcurrent} are rejected straight away.
+     */
+    private int maxQueued = 512;
+    private Duration maxQueueWait = Duration.ofSeconds(2);
+    /**
+     * Rejected requests are told to retry after this delay plus a random share of {@link #retryAfterJitter}.
+     */
+    private Duration retryAfter = Duration.ofSeconds(10);
+    private Duration retryAfterJitter = Duration.ofSeconds(50);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        /**
+         * Requests allowed in a burst.
+         */
+        private int capacity;
+        /**
+         * Time needed to regain one request once the burst is used up.
+         */
+        private Duration refillInterval;
+    }
+}
@@ -0,0 +1,57 @@
+package com.voxloud.provisioning.admission;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+/**
+ * WebFlux variant of {@link AdmissionFilter}. A request waiting for a slot would hold no thread
+ * here, so there is no queue: requests beyond the concurrency limit are shed immediately.
+ */
+@RequiredArgsConstructor
+public class ReactiveAdmissionFilter implements WebFilter {
+    private final AdmissionControl admissionControl;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        if (request.getMethod() != HttpMethod.GET || !path.startsWith(AdmissionFilter.PATH_PREFIX)
+                || path.startsWith(AdmissionFilter.EXPORT, AdmissionFilter.PATH_PREFIX.length())) {
+            return chain.filter(exchange);
+        }
+
+        long macAddress = MacAddress.parseValue(path.substring(path.lastIndexOf('/') + 1));
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        AdmissionControl.Outcome outcome = admissionControl.checkRate(
+                macAddress != MacAddress.INVALID ? MacAddress.of(macAddress) : null,
+                remoteAddress != null ? remoteAddress.getAddress() : null);
+        if (outcome == AdmissionControl.Outcome.ADMITTED) {
+            outcome = admissionControl.tryAcquire();
+        }
+        if (outcome != AdmissionControl.Outcome.ADMITTED) {
+            return reject(exchange.getResponse());
+        }
+        return chain.filter(exchange).doFinally(signal -> admissionControl.release());
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(admissionControl.retryAfterSeconds()));
+        response.getHeaders().setContentType(MediaType.TEXT_PLAIN);
+        DataBuffer body = response.bufferFactory().wrap(AdmissionFilter.REJECTED);
+        return response.writeWith(Mono.just(body));
+    }
+}
@@ -0,0 +1,50 @@
+package com.voxloud.provisioning.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by a {@code long}, such as a MAC address or a subnet prefix.
+ * <p>
+ * Each bucket is a single timestamp, the time at which it will be full again (the generic cell rate
+ * algorithm), updated with a compare-and-set. A bucket idle long enough to be full again carries no
+ * state worth keeping, so buckets expire after that time; the number of buckets is also bounded.
+ */
+final class TokenBuckets {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<Long, AtomicLong> buckets;
+
+    TokenBuckets(AdmissionProperties.Bucket bucket, int maxKeys, LongSupplier nanoClock) {
+        this.intervalNanos = bucket.getRefillInterval().toNanos();
+        this.burstNanos = intervalNanos * bucket.getCapacity();
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(Math.max(burstNanos, 1)))
+                .build();
+    }
+
+    /**
+     * Takes one token from the bucket of {@code key}, returning {@code false} if it is empty.
+     */
+    boolean tryAcquire(long key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong fullAt = buckets.get(key, ignored -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.voxloud.provisioning.cache;
+
+import com.voxloud.provisioning.event.AllDevicesChangedEvent;
+import com.voxloud.provisioning.event.DeviceChangedEvent;
+import com.voxloud.provisioning.event.SettingsChangedEvent;
+import com.voxloud.provisioning.util.OverrideFragmentParser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Drops every cached artifact of a device once a change to its row has been committed, here or on
+ * another instance, and every rendered file once the shared settings change.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeviceCacheInvalidator {
+    private final RenderedConfigCache renderedConfigCache;
+    private final OverrideFragmentParser overrideFragmentParser;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        renderedConfigCache.invalidate(event.getMacAddress());
+        overrideFragmentParser.evict(event.getMacAddress());
+    }
+
+    @EventListener
+    public void onSettingsChanged(SettingsChangedEvent event) {
+        renderedConfigCache.invalidateAll();
+    }
+
+    @EventListener
+    public void onAllDevicesChanged(AllDevicesChangedEvent event) {
+        renderedConfigCache.invalidateAll();
+    }
+}
@@ -0,0 +1,257 @@
+package com.voxloud.provisioning.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.event.DeviceChangedEvent;
+import com.voxloud.provisioning.repository.DeviceRepository;
+import com.voxloud.provisioning.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers lookups of MAC addresses that are not in the inventory without touching the database.
+ * <p>
+ * Two layers sit in front of the lookup. A {@link BloomFilter} of every MAC address in the
+ * inventory rejects most unknown addresses outright; it is built once the application is ready,
+ * extended on every device write, kept current with rows written elsewhere by polling {@code
+ * updated_at}, and rebuilt periodically to forget deleted devices and to grow with the inventory.
+ * The false positives it lets through are remembered in a bounded negative cache after their
+ * lookup misses. Writes evict the negative entry of their device; the invalidation stamp keeps a
+ * miss that raced with a write from being cached after it. Until the first build completes, every
+ * address is let through.
+ */
+@Slf4j
+@Component
+public class DeviceMembershipFilter {
+    private static final int PAGE_SIZE = 10_000;
+
+    private final DeviceRepository deviceRepository;
+    private final TaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final long expectedDevices;
+    private final double falsePositiveRate;
+    private final Duration pollInterval;
+    private final Duration rebuildInterval;
+
+    private final Cache<MacAddress, Boolean> negativeCache;
+    private final AtomicLong invalidationStamp = new AtomicLong();
+    private final Counter filterRejections;
+    private final Counter negativeCacheRejections;
+    private final Counter falsePositives;
+
+    private volatile BloomFilter filter;
+    private BloomFilter building;
+    private Instant watermark;
+
+    public DeviceMembershipFilter(DeviceRepository deviceRepository,
+                                  TaskScheduler taskScheduler,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${provisioning.membership.enabled}") boolean enabled,
+                                  @Value("${provisioning.membership.expected-devices}") long expectedDevices,
+                                  @Value("${provisioning.membership.false-positive-rate}") double falsePositiveRate,
+                                  @Value("${provisioning.membership.poll-interval}") Duration pollInterval,
+                                  @Value("${provisioning.membership.rebuild-interval}") Duration rebuildInterval,
+                                  @Value("${provisioning.negative-cache.max-size}") long negativeCacheSize,
+                                  @Value("${provisioning.negative-cache.ttl}") Duration negativeCacheTtl) {
+        this.deviceRepository = deviceRepository;
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        this.expectedDevices = expectedDevices;
+        this.falsePositiveRate = falsePositiveRate;
+        this.pollInterval = pollInterval;
+        this.rebuildInterval = rebuildInterval;
+        this.negativeCache = Caffeine.newBuilder()
+                .maximumSize(negativeCacheSize)
+                .expireAfterWrite(negativeCacheTtl)
+                .build();
+
+        filterRejections = rejectionCounter(meterRegistry, "filter");
+        negativeCacheRejections = rejectionCounter(meterRegistry, "negative_cache");
+        falsePositives = Counter.builder("provisioning.membership.false.positives")
+                .description("Unknown MAC addresses the membership filter let through to the database")
+                .register(meterRegistry);
+        Gauge.builder("provisioning.membership.expected.fpp", this, DeviceMembershipFilter::expectedFpp)
+                .description("False positive rate of the membership filter at its current fill")
+                .register(meterRegistry);
+        Gauge.builder("provisioning.negative.cache.size", negativeCache, Cache::estimatedSize)
+                .description("MAC addresses remembered as not in the inventory")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rebuild();
+        taskScheduler.scheduleWithFixedDelay(this::poll, Instant.now().plus(pollInterval), pollInterval);
+        taskScheduler.scheduleWithFixedDelay(this::rebuild, Instant.now().plus(rebuildInterval), rebuildInterval);
+    }
+
+    /**
+     * Checks whether {@code macAddress} is known not to be in the inventory, counting the rejection
+     * if so.
+     */
+    public Membership check(MacAddress macAddress) {
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(macAddress.toLong())) {
+            filterRejections.increment();
+            return Membership.ABSENT;
+        }
+        if (negativeCache.getIfPresent(macAddress) != null) {
+            negativeCacheRejections.increment();
+            return Membership.ABSENT;
+        }
+        return current != null ? Membership.POSSIBLE : Membership.UNFILTERED;
+    }
+
+    /**
+     * Returns the stamp to pass to {@link #recordMissing} once the lookup has missed.
+     */
+    public long stamp() {
+        return invalidationStamp.get();
+    }
+
+    /**
+     * Remembers that the lookup of {@code macAddress} found nothing, unless a device was written
+     * since {@code stamp} was taken. The miss is a false positive only if the filter let it through
+     * when {@code checked}.
+     */
+    public void recordMissing(MacAddress macAddress, Membership checked, long stamp) {
+        if (checked == Membership.POSSIBLE) {
+            falsePositives.increment();
+        }
+        if (invalidationStamp.get() == stamp) {
+            negativeCache.put(macAddress, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Adds a device as soon as it is written, before its transaction commits, so that no request
+     * can see the committed row rejected. Deletes leave the address in the filter until the next
+     * rebuild, which only costs a database lookup.
+     */
+    @EventListener
+    public void onDeviceWritten(DeviceChangedEvent event) {
+        add(event.getMacAddress());
+    }
+
+    /**
+     * Adds the device again once committed, in case a rebuild that started in between did not see
+     * it yet.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceCommitted(DeviceChangedEvent event) {
+        add(event.getMacAddress());
+    }
+
+    /**
+     * Replaces the filter with one built from the whole inventory.
+     */
+    void rebuild() {
+        Instant started = Instant.now();
+        long devices = deviceRepository.count();
+        BloomFilter next = BloomFilter.create(Math.max(expectedDevices, devices * 2), falsePositiveRate);
+        synchronized (this) {
+            building = next;
+        }
+        long loaded = 0;
+        MacAddress from = MacAddress.of(0);
+        List<MacAddress> page;
+        do {
+            page = deviceRepository.findMacAddressesFrom(from, PageRequest.ofSize(PAGE_SIZE));
+            for (MacAddress macAddress : page) {
+                next.put(macAddress.toLong());
+            }
+            loaded += page.size();
+            if (page.isEmpty() || page.get(page.size() - 1).toLong() == MacAddress.MAX_VALUE) {
+                break;
+            }
+            from = MacAddress.of(page.get(page.size() - 1).toLong() + 1);
+        } while (page.size() == PAGE_SIZE);
+
+        synchronized (this) {
+            filter = next;
+            building = null;
+            if (watermark == null) {
+                watermark = started.minus(pollInterval);
+            }
+        }
+        log.info("Built membership filter of {} devices ({} KiB) in {} ms", loaded, next.bitSize() / 8 / 1024,
+                Duration.between(started, Instant.now()).toMillis());
+    }
+
+    /**
+     * Adds rows written since the last poll, including those written by other instances.
+     */
+    void poll() {
+        Instant since;
+        synchronized (this) {
+            since = watermark;
+        }
+        if (since == null) {
+            return;
+        }
+        Instant polled = Instant.now();
+        for (MacAddress macAddress : deviceRepository.findMacAddressesUpdatedSince(since)) {
+            add(macAddress);
+        }
+        synchronized (this) {
+            // Rows committed by other instances may carry slightly older timestamps, so each poll
+            // re-reads one interval back.
+            watermark = polled.minus(pollInterval);
+        }
+    }
+
+    private void add(MacAddress macAddress) {
+        synchronized (this) {
+            if (filter != null) {
+                filter.put(macAddress.toLong());
+            }
+            if (building != null) {
+                building.put(macAddress.toLong());
+            }
+        }
+        invalidationStamp.incrementAndGet();
+        negativeCache.invalidate(macAddress);
+    }
+
+    private double expectedFpp() {
+        BloomFilter current = filter;
+        return current != null ? current.expectedFpp() : 0;
+    }
+
+    private static Counter rejectionCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("provisioning.lookup.rejected")
+                .description("Lookups of unknown MAC addresses answered without querying the database")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * Outcome of {@link #check}.
+     */
+    public enum Membership {
+        /** Rejected by the filter or remembered as missing. */
+        ABSENT,
+        /** Let through by the filter, possibly a false positive. */
+        POSSIBLE,
+        /** Not checked because the filter is not built yet or disabled. */
+        UNFILTERED
+    }
+}
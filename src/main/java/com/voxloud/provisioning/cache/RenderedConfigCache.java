@@ -0,0 +1,73 @@
+package com.voxloud.provisioning.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.service.RenderedConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-process cache of rendered provisioning files keyed by MAC address.
+ * <p>
+ * Entries are evicted by size and by age. Device writes invalidate them through
+ * {@link DeviceCacheInvalidator}; the invalidation stamp protects against a render that started
+ * before a write being stored after it.
+ */
+@Component
+public class RenderedConfigCache {
+    private final Cache<MacAddress, RenderedConfig> cache;
+    private final AtomicLong invalidationStamp = new AtomicLong();
+
+    public RenderedConfigCache(@Value("${provisioning.cache.max-size}") long maxSize,
+                               @Value("${provisioning.cache.ttl}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "provisioning.rendered");
+    }
+
+    public RenderedConfig get(MacAddress macAddress) {
+        return cache.getIfPresent(macAddress);
+    }
+
+    /**
+     * Returns the stamp to pass to {@link #put} once the device has been loaded and rendered.
+     */
+    public long stamp() {
+        return invalidationStamp.get();
+    }
+
+    /**
+     * Stores the config unless an invalidation happened since {@code stamp} was taken, in which case
+     * the rendered value may already be stale and is simply not cached.
+     */
+    public void put(MacAddress macAddress, RenderedConfig config, long stamp) {
+        if (invalidationStamp.get() == stamp) {
+            cache.put(macAddress, config);
+        }
+    }
+
+    public void invalidate(MacAddress macAddress) {
+        invalidationStamp.incrementAndGet();
+        cache.invalidate(macAddress);
+    }
+
+    public void invalidateAll() {
+        invalidationStamp.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -0,0 +1,193 @@
+package com.voxloud.provisioning.cache;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.repository.DeviceRepository;
+import com.voxloud.provisioning.service.ConfigVersion;
+import com.voxloud.provisioning.service.DeviceConfigRenderer;
+import com.voxloud.provisioning.service.RenderedConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Rendered provisioning files of the whole inventory kept on disk, so that a restarted instance
+ * serves its first reboot wave without rendering every device again. Enabled by
+ * {@code provisioning.snapshot.enabled=true}.
+ * <p>
+ * The snapshot at {@code provisioning.snapshot.location} is memory-mapped as soon as the instance
+ * starts. It is rewritten every {@code provisioning.snapshot.write-interval} and on shutdown, from the
+ * rendered file cache where it is current and by rendering the other devices. A file is restored from
+ * the snapshot only if its entity tag equals the one computed from the device's current version
+ * columns, settings and template; any other entry is ignored and the device rendered as usual.
+ */
+@Slf4j
+@Component
+public class RenderedConfigSnapshot {
+    private static final int PAGE_SIZE = 1000;
+
+    private final DeviceRepository deviceRepository;
+    private final DeviceConfigRenderer deviceConfigRenderer;
+    private final RenderedConfigCache renderedConfigCache;
+    private final TaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final Path location;
+    private final Duration writeInterval;
+
+    private final Counter hits;
+    private final Counter stale;
+
+    private volatile SnapshotFile snapshot;
+
+    public RenderedConfigSnapshot(DeviceRepository deviceRepository,
+                                  DeviceConfigRenderer deviceConfigRenderer,
+                                  RenderedConfigCache renderedConfigCache,
+                                  TaskScheduler taskScheduler,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${provisioning.snapshot.enabled}") boolean enabled,
+                                  @Value("${provisioning.snapshot.location}") Path location,
+                                  @Value("${provisioning.snapshot.write-interval}") Duration writeInterval) {
+        this.deviceRepository = deviceRepository;
+        this.deviceConfigRenderer = deviceConfigRenderer;
+        this.renderedConfigCache = renderedConfigCache;
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        this.location = location;
+        this.writeInterval = writeInterval;
+
+        hits = restoreCounter(meterRegistry, "hit");
+        stale = restoreCounter(meterRegistry, "stale");
+        Gauge.builder("provisioning.snapshot.entries", this, RenderedConfigSnapshot::size)
+                .description("Rendered files in the mapped on-disk snapshot")
+                .register(meterRegistry);
+
+        if (enabled) {
+            open();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (enabled) {
+            taskScheduler.scheduleWithFixedDelay(this::write, Instant.now().plus(writeInterval), writeInterval);
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        if (enabled) {
+            write();
+        }
+    }
+
+    /**
+     * Whether the snapshot holds a file for {@code macAddress}, current or not.
+     */
+    public boolean contains(MacAddress macAddress) {
+        SnapshotFile current = snapshot;
+        return current != null && current.contains(macAddress.toLong());
+    }
+
+    /**
+     * The file kept for {@code macAddress} if it was rendered under {@code version}, {@code null}
+     * otherwise.
+     */
+    public RenderedConfig restore(MacAddress macAddress, Device.DeviceModel model, ConfigVersion version) {
+        SnapshotFile current = snapshot;
+        SnapshotFile.Entry entry = current != null ? current.find(macAddress.toLong()) : null;
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.getEtag().equals(version.getEtag())) {
+            stale.increment();
+            return null;
+        }
+        hits.increment();
+        return deviceConfigRenderer.restore(model, entry.getContent(), entry.getGzipContent(), version);
+    }
+
+    /**
+     * Writes the files of every device to a new snapshot and maps it. Devices that fail to render
+     * are left out.
+     */
+    synchronized void write() {
+        Instant started = Instant.now();
+        int skipped = 0;
+        try (SnapshotFile.Writer writer = new SnapshotFile.Writer(location)) {
+            MacAddress after = null;
+            List<Device> page;
+            do {
+                page = deviceRepository.findPageAfter(after, null, PageRequest.ofSize(PAGE_SIZE));
+                for (Device device : page) {
+                    RenderedConfig config;
+                    try {
+                        config = render(device);
+                    } catch (RuntimeException e) {
+                        skipped++;
+                        continue;
+                    }
+                    writer.append(device.getMacAddress().toLong(), config.getVersion().getEtag(),
+                            config.getContent(), config.getGzipContent());
+                }
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getMacAddress();
+                }
+            } while (page.size() == PAGE_SIZE);
+            writer.commit();
+            snapshot = SnapshotFile.open(location);
+            log.info("Wrote {} rendered files to {} in {} ms, {} devices skipped", writer.size(), location,
+                    Duration.between(started, Instant.now()).toMillis(), skipped);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to write the rendered config snapshot to {}", location, e);
+        }
+    }
+
+    private RenderedConfig render(Device device) {
+        RenderedConfig cached = renderedConfigCache.get(device.getMacAddress());
+        if (cached != null && cached.getVersion().equals(deviceConfigRenderer.version(
+                device.getModel(), device.getGroupName(), device.getVersion(), device.getUpdatedAt()))) {
+            return cached;
+        }
+        return deviceConfigRenderer.render(device);
+    }
+
+    private void open() {
+        if (!Files.exists(location)) {
+            return;
+        }
+        try {
+            snapshot = SnapshotFile.open(location);
+            log.info("Mapped rendered config snapshot {} of {} devices written at {}", location, snapshot.size(),
+                    snapshot.getCreatedAt());
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable rendered config snapshot {}", location, e);
+        }
+    }
+
+    private int size() {
+        SnapshotFile current = snapshot;
+        return current != null ? current.size() : 0;
+    }
+
+    private static Counter restoreCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("provisioning.snapshot.restores")
+                .description("Cache misses answered from the on-disk snapshot, or skipped because it was stale")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
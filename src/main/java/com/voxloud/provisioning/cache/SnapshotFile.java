@@ -0,0 +1,233 @@
+package com.voxloud.provisioning.cache;
+
+import lombok.Value;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * On-disk format of the {@link RenderedConfigSnapshot}, memory-mapped when read.
+ * <p>
+ * The file is written front to back in one pass: one record per device, then an index of
+ * {@code (MAC address, record offset)} pairs sorted by MAC address, then a fixed-size trailer
+ * locating the index. A record holds the entity tag the file was rendered under, the content and
+ * the gzip variant ({@code -1} length when there is none). Lookups binary-search the index in
+ * place; only the bytes of a found record are copied out.
+ * <pre>
+ * record:  u16 etag length, etag (UTF-8), i32 content length, content, i32 gzip length, gzip
+ * index:   i64 MAC address, i64 record offset (sorted by MAC address)
+ * trailer: i64 created at (epoch ms), i64 index offset, i32 entries, i32 format, i32 magic
+ * </pre>
+ */
+final class SnapshotFile {
+    private static final int MAGIC = 0x50524353;
+    private static final int FORMAT = 1;
+    private static final int TRAILER_SIZE = 28;
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int indexOffset;
+    private final int entries;
+    private final Instant createdAt;
+
+    private SnapshotFile(ByteBuffer buffer, int indexOffset, int entries, Instant createdAt) {
+        this.buffer = buffer;
+        this.indexOffset = indexOffset;
+        this.entries = entries;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Maps the snapshot at {@code path}, failing with an {@link IOException} when it is not a
+     * complete snapshot of the current format.
+     */
+    static SnapshotFile open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < TRAILER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a rendered config snapshot: " + path + " has " + size + " bytes");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int trailer = (int) size - TRAILER_SIZE;
+            long createdAt = buffer.getLong(trailer);
+            long indexOffset = buffer.getLong(trailer + 8);
+            int entries = buffer.getInt(trailer + 16);
+            int format = buffer.getInt(trailer + 20);
+            int magic = buffer.getInt(trailer + 24);
+            if (magic != MAGIC || format != FORMAT || entries < 0 || indexOffset < 0
+                    || indexOffset + (long) entries * INDEX_ENTRY_SIZE != trailer) {
+                throw new IOException("Not a rendered config snapshot of format " + FORMAT + ": " + path);
+            }
+            return new SnapshotFile(buffer, (int) indexOffset, entries, Instant.ofEpochMilli(createdAt));
+        }
+    }
+
+    int size() {
+        return entries;
+    }
+
+    Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    boolean contains(long macAddress) {
+        return indexOf(macAddress) >= 0;
+    }
+
+    /**
+     * The record of {@code macAddress}, or {@code null} when the snapshot holds none.
+     */
+    Entry find(long macAddress) {
+        int index = indexOf(macAddress);
+        if (index < 0) {
+            return null;
+        }
+        int position = (int) buffer.getLong(indexOffset + index * INDEX_ENTRY_SIZE + 8);
+        int etagLength = Short.toUnsignedInt(buffer.getShort(position));
+        position += 2;
+        String etag = new String(read(position, etagLength), StandardCharsets.UTF_8);
+        position += etagLength;
+        int contentLength = buffer.getInt(position);
+        byte[] content = read(position + 4, contentLength);
+        position += 4 + contentLength;
+        int gzipLength = buffer.getInt(position);
+        byte[] gzipContent = gzipLength < 0 ? null : read(position + 4, gzipLength);
+        return new Entry(etag, content, gzipContent);
+    }
+
+    private int indexOf(long macAddress) {
+        int low = 0;
+        int high = entries - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long key = buffer.getLong(indexOffset + middle * INDEX_ENTRY_SIZE);
+            if (key < macAddress) {
+                low = middle + 1;
+            } else if (key > macAddress) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private byte[] read(int position, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(position, bytes);
+        return bytes;
+    }
+
+    @Value
+    static class Entry {
+        String etag;
+        byte[] content;
+        byte[] gzipContent;
+    }
+
+    /**
+     * Writes a snapshot to a temporary file next to the target, readable by the owner only since the
+     * files carry SIP credentials, and moves it over the target on {@link #commit}. Records must be
+     * appended in ascending MAC address order.
+     */
+    static final class Writer implements Closeable {
+        private final Path target;
+        private final Path temporary;
+        private final DataOutputStream out;
+        private long[] macAddresses = new long[1024];
+        private long[] offsets = new long[1024];
+        private int entries;
+        private long position;
+        private boolean committed;
+
+        Writer(Path target) throws IOException {
+            this.target = target;
+            Path directory = target.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            this.temporary = Files.createTempFile(directory, target.getFileName().toString(), ".tmp", ownerOnly());
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 64 * 1024));
+        }
+
+        void append(long macAddress, String etag, byte[] content, byte[] gzipContent) throws IOException {
+            if (entries > 0 && macAddress <= macAddresses[entries - 1]) {
+                throw new IllegalStateException("Snapshot records must be appended in ascending MAC address order");
+            }
+            if (entries == macAddresses.length) {
+                macAddresses = Arrays.copyOf(macAddresses, entries * 2);
+                offsets = Arrays.copyOf(offsets, entries * 2);
+            }
+            macAddresses[entries] = macAddress;
+            offsets[entries] = position;
+            entries++;
+
+            byte[] tag = etag.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(tag.length);
+            out.write(tag);
+            out.writeInt(content.length);
+            out.write(content);
+            out.writeInt(gzipContent != null ? gzipContent.length : -1);
+            if (gzipContent != null) {
+                out.write(gzipContent);
+            }
+            position += 2 + tag.length + 4 + content.length + 4 + (gzipContent != null ? gzipContent.length : 0);
+        }
+
+        /**
+         * Writes the index and the trailer and atomically replaces the target with the new file.
+         */
+        void commit() throws IOException {
+            long indexOffset = position;
+            for (int i = 0; i < entries; i++) {
+                out.writeLong(macAddresses[i]);
+                out.writeLong(offsets[i]);
+            }
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(indexOffset);
+            out.writeInt(entries);
+            out.writeInt(FORMAT);
+            out.writeInt(MAGIC);
+            out.close();
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            committed = true;
+        }
+
+        int size() {
+            return entries;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private static FileAttribute<?>[] ownerOnly() {
+            if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                return new FileAttribute<?>[0];
+            }
+            return new FileAttribute<?>[]{
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))};
+        }
+    }
+}
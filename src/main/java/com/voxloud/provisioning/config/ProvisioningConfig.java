@@ -1,26 +1,110 @@
 package com.voxloud.provisioning.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voxloud.provisioning.cache.DeviceMembershipFilter;
+import com.voxloud.provisioning.cache.RenderedConfigCache;
+import com.voxloud.provisioning.cache.RenderedConfigSnapshot;
+import com.voxloud.provisioning.controller.ProvisioningController;
+import com.voxloud.provisioning.invalidation.InvalidationBus;
+import com.voxloud.provisioning.metrics.ProvisioningMetrics;
+import com.voxloud.provisioning.reactive.ReactiveProvisioningController;
+import com.voxloud.provisioning.reactive.ReactiveProvisioningService;
+import com.voxloud.provisioning.repository.DeviceLookup;
+import com.voxloud.provisioning.service.DeviceConfigRenderer;
+import com.voxloud.provisioning.service.ProvisioningService;
+import com.voxloud.provisioning.settings.LayeredSettings;
+import com.voxloud.provisioning.strategy.ProvisioningStrategy;
 import com.voxloud.provisioning.strategy.ProvisioningStrategyFactory;
+import com.voxloud.provisioning.strategy.TemplateProvisioningStrategy;
+import com.voxloud.provisioning.template.ConfigTemplate;
 import com.voxloud.provisioning.util.OverrideFragmentParser;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ProvisioningProperties.class)
 public class ProvisioningConfig {
     @Bean
-    public OverrideFragmentParser overrideFragmentParser(ObjectMapper objectMapper) {
-        return new OverrideFragmentParser(objectMapper);
+    public OverrideFragmentParser overrideFragmentParser(ProvisioningMetrics metrics,
+                                                         @Value("${provisioning.cache.max-size}") long cacheSize) {
+        return new OverrideFragmentParser(metrics, cacheSize);
     }
 
+    /**
+     * Registers a template strategy for every model listed under {@code provisioning.templates}
+     * plus any {@link ProvisioningStrategy} beans contributed by other modules.
+     */
     @Bean
-    public ProvisioningStrategyFactory provisioningStrategyFactory(OverrideFragmentParser
-                                                                           overrideFragmentParser) {
-        return new ProvisioningStrategyFactory(overrideFragmentParser);
+    public ProvisioningStrategyFactory provisioningStrategyFactory(ProvisioningProperties properties,
+                                                                   OverrideFragmentParser overrideFragmentParser,
+                                                                   ResourceLoader resourceLoader,
+                                                                   ObjectProvider<ProvisioningStrategy> strategyBeans)
+            throws IOException {
+        List<ProvisioningStrategy> strategies = new ArrayList<>(strategyBeans.orderedStream().toList());
+        for (var entry : properties.getTemplates().entrySet()) {
+            ProvisioningProperties.TemplateDefinition definition = entry.getValue();
+            ConfigTemplate template = ConfigTemplate.compile(
+                    readTemplate(resourceLoader.getResource(definition.getLocation())));
+            strategies.add(new TemplateProvisioningStrategy(entry.getKey(), template,
+                    definition.getContentType(), definition.getFileExtension(), overrideFragmentParser));
+        }
+        return new ProvisioningStrategyFactory(strategies);
+    }
+
+    /**
+     * Shared settings layers. {@code provisioning.domain}, {@code port} and {@code codecs} are the
+     * bottom of the global layer.
+     */
+    @Bean
+    public LayeredSettings layeredSettings(ProvisioningProperties properties,
+                                           @Value("${provisioning.domain}") String domain,
+                                           @Value("${provisioning.port}") String port,
+                                           @Value("${provisioning.codecs}") String codecs,
+                                           ApplicationEventPublisher eventPublisher,
+                                           TaskScheduler taskScheduler) {
+        return new LayeredSettings(Map.of("domain", domain, "port", port, "codecs", codecs),
+                properties.getSettings(), eventPublisher, taskScheduler);
+    }
+
+    /**
+     * Keeps the beans answering provisioning requests eager under
+     * {@code spring.main.lazy-initialization}, so that the first phone after a start does not pay for
+     * creating them.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter servingPathLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ProvisioningController.class,
+                ReactiveProvisioningController.class, ProvisioningService.class, ReactiveProvisioningService.class,
+                DeviceLookup.class, RenderedConfigCache.class, RenderedConfigSnapshot.class,
+                DeviceMembershipFilter.class, InvalidationBus.class, ProvisioningStrategyFactory.class,
+                DeviceConfigRenderer.class);
     }
 
     @Bean
     public ObjectMapper objectMapper() {
         return new ObjectMapper();
     }
+
+    private static String readTemplate(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
 }
@@ -0,0 +1,57 @@
+package com.voxloud.provisioning.config;
+
+import com.voxloud.provisioning.entity.Device;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "provisioning")
+public class ProvisioningProperties {
+    /**
+     * Configuration file format of each device model.
+     */
+    private Map<Device.DeviceModel, TemplateDefinition> templates = new EnumMap<>(Device.DeviceModel.class);
+
+    /**
+     * Settings layered over {@code provisioning.domain}, {@code port} and {@code codecs}.
+     */
+    private Settings settings = new Settings();
+
+    @Data
+    public static class TemplateDefinition {
+        /**
+         * Resource holding the template source, e.g. {@code classpath:templates/desk.properties}.
+         */
+        private String location;
+        private String contentType = "text/plain;charset=UTF-8";
+        private String fileExtension = "cfg";
+    }
+
+    @Data
+    public static class Settings {
+        /**
+         * Settings of every device, on top of {@code provisioning.domain}, {@code port} and {@code codecs}.
+         */
+        private Map<String, String> global = new HashMap<>();
+        /**
+         * Settings of the devices of one model.
+         */
+        private Map<Device.DeviceModel, Map<String, String>> models = new EnumMap<>(Device.DeviceModel.class);
+        /**
+         * Settings of the devices of one group, e.g. a tenant or a site.
+         */
+        private Map<String, Map<String, String>> groups = new HashMap<>();
+        /**
+         * Optional properties file with {@code global.*}, {@code models.<MODEL>.*} and
+         * {@code groups.<group>.*} entries, overriding the layers above and reloaded when it changes.
+         */
+        private Path location;
+        private Duration reloadInterval = Duration.ofSeconds(30);
+    }
+}
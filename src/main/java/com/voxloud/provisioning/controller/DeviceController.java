@@ -0,0 +1,91 @@
+package com.voxloud.provisioning.controller;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.exception.InvalidDeviceException;
+import com.voxloud.provisioning.service.DeviceImportService;
+import com.voxloud.provisioning.service.DeviceInput;
+import com.voxloud.provisioning.service.DeviceWriteService;
+import com.voxloud.provisioning.service.ImportFormat;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.time.Duration;
+
+/**
+ * Write API of the device inventory: single devices by MAC address, and bulk imports whose
+ * NDJSON report is streamed while the request body is still being read. Imports run on the
+ * application task executor and are timed out after {@code provisioning.import.timeout}.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/devices")
+public class DeviceController {
+    private final DeviceWriteService deviceWriteService;
+    private final DeviceImportService deviceImportService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Duration importTimeout;
+
+    public DeviceController(DeviceWriteService deviceWriteService,
+                            DeviceImportService deviceImportService,
+                            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                            AsyncTaskExecutor taskExecutor,
+                            @Value("${provisioning.import.timeout}") Duration importTimeout) {
+        this.deviceWriteService = deviceWriteService;
+        this.deviceImportService = deviceImportService;
+        this.taskExecutor = taskExecutor;
+        this.importTimeout = importTimeout;
+    }
+
+    @PutMapping(path = "/{macAddress}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> saveDevice(@PathVariable("macAddress") String macAddress,
+                                           @RequestBody DeviceInput device) {
+        boolean created = deviceWriteService.save(parse(macAddress), device);
+        return ResponseEntity.status(created ? HttpStatus.CREATED : HttpStatus.NO_CONTENT).build();
+    }
+
+    @DeleteMapping("/{macAddress}")
+    public ResponseEntity<Void> deleteDevice(@PathVariable("macAddress") String macAddress) {
+        deviceWriteService.delete(parse(macAddress));
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping(path = "/import", consumes = "text/csv")
+    public ResponseEntity<ResponseBodyEmitter> importCsv(HttpServletRequest request) {
+        return importDevices(ImportFormat.CSV, request);
+    }
+
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> importNdjson(HttpServletRequest request) {
+        return importDevices(ImportFormat.NDJSON, request);
+    }
+
+    private ResponseEntity<ResponseBodyEmitter> importDevices(ImportFormat format, HttpServletRequest request) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(StreamingEmitter.start(taskExecutor, importTimeout,
+                        out -> deviceImportService.importDevices(format, request.getInputStream(), out)));
+    }
+
+    private static MacAddress parse(String macAddress) {
+        MacAddress parsed = MacAddress.tryParse(macAddress);
+        if (parsed == null) {
+            throw new InvalidDeviceException("Invalid MAC address: " + macAddress);
+        }
+        return parsed;
+    }
+}
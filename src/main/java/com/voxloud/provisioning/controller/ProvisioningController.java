@@ -1,26 +1,88 @@
 package com.voxloud.provisioning.controller;
 
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.service.ConfigVersion;
+import com.voxloud.provisioning.service.ContentCoding;
 import com.voxloud.provisioning.service.ProvisioningService;
+import com.voxloud.provisioning.service.RenderedConfig;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/v1")
 @RequiredArgsConstructor
 public class ProvisioningController {
+    private static final byte[] DEVICE_NOT_FOUND = "Device not found!".getBytes(StandardCharsets.UTF_8);
 
     private final ProvisioningService provisioningService;
 
+    /**
+     * Serves the rendered bytes as they are held by the cache: the array is written straight to the
+     * response with an exact Content-Length, without an intermediate {@code String}. Phones accepting
+     * gzip get the variant compressed at render time, under its own entity tag. Only conditional
+     * requests look up the version first. Any common MAC address notation is accepted; text that is
+     * not a MAC address cannot match a device.
+     */
     @GetMapping("/provisioning/{macAddress}")
-    public ResponseEntity<String> provisionDevice(@PathVariable String macAddress) {
-        String provisioningFile = provisioningService.getProvisioningFile(macAddress);
-        return provisioningFile != null
-                ? ResponseEntity.ok(provisioningFile)
-                : ResponseEntity.status(HttpStatus.NOT_FOUND).body("Device not found!");
+    public ResponseEntity<byte[]> provisionDevice(@PathVariable("macAddress") String macAddressText,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING,
+                                                          required = false) String acceptEncoding,
+                                                  WebRequest request, HttpServletResponse response) {
+        MacAddress macAddress = MacAddress.tryParse(macAddressText);
+        if (macAddress == null) {
+            return deviceNotFound();
+        }
+
+        ContentCoding coding = ContentCoding.negotiate(acceptEncoding);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (isConditional(request)) {
+            ConfigVersion version = provisioningService.getConfigVersion(macAddress);
+            if (version == null) {
+                return deviceNotFound();
+            }
+            if (request.checkNotModified(coding.etag(version.getEtag()), version.getLastModified())) {
+                return null;
+            }
+        }
+
+        RenderedConfig renderedConfig = provisioningService.getRenderedConfig(macAddress);
+        if (renderedConfig == null) {
+            return deviceNotFound();
+        }
+        byte[] body = renderedConfig.getContent(coding);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, renderedConfig.getContentType())
+                .contentLength(body.length)
+                .eTag(coding.etag(renderedConfig.getVersion().getEtag()))
+                .lastModified(renderedConfig.getVersion().getLastModified());
+        if (renderedConfig.isEncoded(coding)) {
+            ok.header(HttpHeaders.CONTENT_ENCODING, coding.getToken());
+        }
+        return ok.body(body);
+    }
+
+    private static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    private static ResponseEntity<byte[]> deviceNotFound() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(DEVICE_NOT_FOUND);
     }
 }
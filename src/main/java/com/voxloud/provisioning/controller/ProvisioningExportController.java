@@ -0,0 +1,67 @@
+package com.voxloud.provisioning.controller;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.service.ExportFormat;
+import com.voxloud.provisioning.service.ProvisioningExportService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Streams exports through a {@link StreamingEmitter}, timed out after {@code
+ * provisioning.export.timeout} instead of the container's default async timeout. The export runs on
+ * the application task executor and hands over each page as one chunk.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/api/v1/provisioning/export")
+public class ProvisioningExportController {
+
+    private final ProvisioningExportService provisioningExportService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final Duration timeout;
+
+    public ProvisioningExportController(ProvisioningExportService provisioningExportService,
+                                        @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                        AsyncTaskExecutor taskExecutor,
+                                        @Value("${provisioning.export.timeout}") Duration timeout) {
+        this.provisioningExportService = provisioningExportService;
+        this.taskExecutor = taskExecutor;
+        this.timeout = timeout;
+    }
+
+    @GetMapping
+    public ResponseEntity<ResponseBodyEmitter> exportAll(
+            @RequestParam(required = false) Device.DeviceModel model,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return streaming(format, out -> provisioningExportService.exportAll(model, format, out));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> exportDevices(
+            @RequestBody List<String> macAddresses,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return streaming(format, out -> provisioningExportService.exportDevices(macAddresses, format, out));
+    }
+
+    private ResponseEntity<ResponseBodyEmitter> streaming(ExportFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(StreamingEmitter.start(taskExecutor, timeout, body));
+    }
+}
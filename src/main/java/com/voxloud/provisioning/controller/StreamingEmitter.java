@@ -0,0 +1,55 @@
+package com.voxloud.provisioning.controller;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Runs a {@link StreamingResponseBody} on a task executor behind a {@link ResponseBodyEmitter},
+ * which carries its own timeout instead of the container's default async timeout. What the body
+ * writes is sent at each of its flushes.
+ */
+final class StreamingEmitter {
+
+    private StreamingEmitter() {
+    }
+
+    static ResponseBodyEmitter start(AsyncTaskExecutor taskExecutor, Duration timeout, StreamingResponseBody body) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeout.toMillis());
+        taskExecutor.execute(() -> {
+            try {
+                EmitterOutputStream out = new EmitterOutputStream(emitter);
+                body.writeTo(out);
+                out.flush();
+                emitter.complete();
+            } catch (IOException | RuntimeException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Sends what was written since the previous flush. Sending fails once the request has timed out
+     * or the client went away, which ends the body.
+     */
+    private static final class EmitterOutputStream extends ByteArrayOutputStream {
+        private final ResponseBodyEmitter emitter;
+
+        private EmitterOutputStream(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (size() > 0) {
+                emitter.send(toByteArray());
+                reset();
+            }
+        }
+    }
+}
@@ -2,18 +2,30 @@ package com.voxloud.provisioning.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Version;
 import lombok.Data;
+import org.hibernate.annotations.JavaType;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
 
 @Entity
+@EntityListeners(DeviceEntityListener.class)
 @Data
 public class Device {
 
     @Id
     @Column(name = "mac_address")
-    private String macAddress;
+    @JavaType(MacAddressJavaType.class)
+    @JdbcTypeCode(SqlTypes.BIGINT)
+    private MacAddress macAddress;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -22,10 +34,36 @@ public class Device {
     @Column(name = "override_fragment")
     private String overrideFragment;
 
+    /**
+     * {@link com.voxloud.provisioning.util.CompiledOverrides Compiled} copy of the validated
+     * override fragment, maintained by {@link DeviceEntityListener} whenever the device is written.
+     */
+    @Column(name = "override_compiled")
+    private byte[] overrideCompiled;
+
     private String username;
 
     private String password;
 
+    /**
+     * Tenant or site the device belongs to, selecting a layer of shared settings.
+     */
+    @Column(name = "group_name")
+    private String groupName;
+
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now();
+    }
+
     public enum DeviceModel {
         CONFERENCE,
         DESK
@@ -0,0 +1,41 @@
+package com.voxloud.provisioning.entity;
+
+import com.voxloud.provisioning.event.DeviceChangedEvent;
+import com.voxloud.provisioning.service.OverrideFragmentCompiler;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compiles the override fragment of every {@link Device} before it is written and turns JPA
+ * lifecycle callbacks into {@link DeviceChangedEvent}s. Instantiated by Hibernate through Spring's
+ * bean container, which is why it can take constructor dependencies.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeviceEntityListener {
+    private final ApplicationEventPublisher eventPublisher;
+    private final OverrideFragmentCompiler overrideFragmentCompiler;
+
+    /**
+     * Rejects a device whose override fragment is invalid, failing the write before it reaches the
+     * database.
+     */
+    @PrePersist
+    @PreUpdate
+    public void compileOverrides(Device device) {
+        device.setOverrideCompiled(overrideFragmentCompiler.compile(device));
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onDeviceChanged(Device device) {
+        eventPublisher.publishEvent(new DeviceChangedEvent(device.getMacAddress()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.voxloud.provisioning.entity;
+
+import java.io.Serializable;
+
+/**
+ * A 48-bit MAC address held in a {@code long}.
+ * <p>
+ * Parsing accepts the common notations regardless of case: {@code aa-bb-cc-dd-ee-ff},
+ * {@code aa:bb:cc:dd:ee:ff}, {@code aabb.ccdd.eeff} and {@code aabbccddeeff}. All of them denote the
+ * same address, which always prints in the canonical {@code aa-bb-cc-dd-ee-ff} form.
+ */
+public final class MacAddress implements Comparable<MacAddress>, Serializable {
+    /**
+     * Returned by {@link #parseValue} for text that is not a MAC address.
+     */
+    public static final long INVALID = -1;
+
+    /**
+     * Largest 48-bit address, {@code ff-ff-ff-ff-ff-ff}.
+     */
+    public static final long MAX_VALUE = 0xffff_ffff_ffffL;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long value;
+
+    private MacAddress(long value) {
+        this.value = value;
+    }
+
+    public static MacAddress of(long value) {
+        if (value < 0 || value > MAX_VALUE) {
+            throw new IllegalArgumentException("Not a 48-bit MAC address: " + value);
+        }
+        return new MacAddress(value);
+    }
+
+    public static MacAddress parse(CharSequence text) {
+        MacAddress macAddress = tryParse(text);
+        if (macAddress == null) {
+            throw new IllegalArgumentException("Invalid MAC address: " + text);
+        }
+        return macAddress;
+    }
+
+    /**
+     * Returns the address denoted by {@code text}, or {@code null} if it is not a MAC address.
+     */
+    public static MacAddress tryParse(CharSequence text) {
+        long value = parseValue(text);
+        return value != INVALID ? new MacAddress(value) : null;
+    }
+
+    /**
+     * Returns the 48-bit value denoted by {@code text}, or {@link #INVALID}. Does not allocate.
+     */
+    public static long parseValue(CharSequence text) {
+        if (text == null) {
+            return INVALID;
+        }
+        switch (text.length()) {
+            case 12:
+                return parseDigits(text, 0, 0, (char) 0);
+            case 14:
+                return parseDigits(text, 4, 5, '.');
+            case 17:
+                char separator = text.charAt(2);
+                return separator == '-' || separator == ':' ? parseDigits(text, 2, 3, separator) : INVALID;
+            default:
+                return INVALID;
+        }
+    }
+
+    public long toLong() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        char[] text = new char[17];
+        for (int i = 0, shift = 40; i < text.length; i += 3, shift -= 8) {
+            int octet = (int) (value >>> shift) & 0xff;
+            text[i] = HEX[octet >>> 4];
+            text[i + 1] = HEX[octet & 0xf];
+            if (i + 2 < text.length) {
+                text[i + 2] = '-';
+            }
+        }
+        return new String(text);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || other instanceof MacAddress && value == ((MacAddress) other).value;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(value);
+    }
+
+    @Override
+    public int compareTo(MacAddress other) {
+        return Long.compare(value, other.value);
+    }
+
+    /**
+     * Reads twelve hex digits from {@code text}, expecting {@code separator} after every
+     * {@code groupDigits} digits, i.e. every {@code groupLength} characters.
+     */
+    private static long parseDigits(CharSequence text, int groupDigits, int groupLength, char separator) {
+        long value = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (groupLength > 0 && i % groupLength == groupDigits) {
+                if (c != separator) {
+                    return INVALID;
+                }
+                continue;
+            }
+            int digit = hexDigit(c);
+            if (digit < 0) {
+                return INVALID;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        char lower = (char) (c | 0x20);
+        return lower >= 'a' && lower <= 'f' ? lower - 'a' + 10 : -1;
+    }
+}
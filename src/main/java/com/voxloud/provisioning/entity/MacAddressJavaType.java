@@ -0,0 +1,56 @@
+package com.voxloud.provisioning.entity;
+
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractClassJavaType;
+
+/**
+ * Maps {@link MacAddress} to its 48-bit value, so the column is a {@code BIGINT}. A Hibernate type
+ * rather than a JPA {@code AttributeConverter} because converters are not applied to identifiers.
+ */
+public class MacAddressJavaType extends AbstractClassJavaType<MacAddress> {
+    public MacAddressJavaType() {
+        super(MacAddress.class);
+    }
+
+    @Override
+    public String toString(MacAddress value) {
+        return value.toString();
+    }
+
+    @Override
+    public MacAddress fromString(CharSequence string) {
+        return MacAddress.parse(string);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <X> X unwrap(MacAddress value, Class<X> type, WrapperOptions options) {
+        if (value == null) {
+            return null;
+        }
+        if (type.isInstance(value)) {
+            return (X) value;
+        }
+        if (type.isAssignableFrom(Long.class)) {
+            return (X) Long.valueOf(value.toLong());
+        }
+        if (type.isAssignableFrom(String.class)) {
+            return (X) value.toString();
+        }
+        throw unknownUnwrap(type);
+    }
+
+    @Override
+    public <X> MacAddress wrap(X value, WrapperOptions options) {
+        if (value == null || value instanceof MacAddress) {
+            return (MacAddress) value;
+        }
+        if (value instanceof Number number) {
+            return MacAddress.of(number.longValue());
+        }
+        if (value instanceof CharSequence text) {
+            return MacAddress.parse(text);
+        }
+        throw unknownWrap(value.getClass());
+    }
+}
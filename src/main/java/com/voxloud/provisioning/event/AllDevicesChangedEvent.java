@@ -0,0 +1,11 @@
+package com.voxloud.provisioning.event;
+
+import lombok.Value;
+
+/**
+ * Published when every device has to be considered changed: another instance reloaded different
+ * shared settings, or this instance lost track of the changes made by the others.
+ */
+@Value
+public class AllDevicesChangedEvent {
+}
@@ -0,0 +1,21 @@
+package com.voxloud.provisioning.event;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Published whenever a device row is inserted, updated or deleted, so that everything derived from
+ * that row can be dropped. {@code remote} events stand for a change committed by another instance
+ * and are not broadcast again.
+ */
+@Value
+@AllArgsConstructor
+public class DeviceChangedEvent {
+    MacAddress macAddress;
+    boolean remote;
+
+    public DeviceChangedEvent(MacAddress macAddress) {
+        this(macAddress, false);
+    }
+}
@@ -0,0 +1,13 @@
+package com.voxloud.provisioning.event;
+
+import com.voxloud.provisioning.settings.SettingsLayers;
+import lombok.Value;
+
+/**
+ * Published when the shared settings layers have been reloaded with different values, so that
+ * every file rendered from the previous ones can be dropped.
+ */
+@Value
+public class SettingsChangedEvent {
+    SettingsLayers settings;
+}
@@ -1,7 +1,12 @@
 package com.voxloud.provisioning.exception;
 
+/**
+ * Thrown by the APIs that treat an unknown device as an error. The provisioning path itself reports
+ * unknown devices as values; this exception carries no stack trace either way, since it is an
+ * expected outcome rather than a bug.
+ */
 public class DeviceNotFoundException extends RuntimeException {
     public DeviceNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,10 @@
+package com.voxloud.provisioning.exception;
+
+/**
+ * A device submitted for writing is incomplete or malformed.
+ */
+public class InvalidDeviceException extends RuntimeException {
+    public InvalidDeviceException(String message) {
+        super(message);
+    }
+}
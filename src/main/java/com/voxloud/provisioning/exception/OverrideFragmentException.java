@@ -1,7 +1,24 @@
 package com.voxloud.provisioning.exception;
 
+import lombok.Getter;
+
+@Getter
 public class OverrideFragmentException extends RuntimeException {
+    /**
+     * 1-based position of the error in the fragment, or -1 when unknown.
+     */
+    private final int line;
+    private final int column;
+
     public OverrideFragmentException(String message, Throwable cause) {
         super(message, cause);
+        this.line = -1;
+        this.column = -1;
+    }
+
+    public OverrideFragmentException(String message, int line, int column, Throwable cause) {
+        super(message + " at line " + line + ", column " + column, cause);
+        this.line = line;
+        this.column = column;
     }
 }
@@ -0,0 +1,7 @@
+package com.voxloud.provisioning.exception;
+
+public class UnsupportedDeviceModelException extends RuntimeException {
+    public UnsupportedDeviceModelException(String message) {
+        super(message);
+    }
+}
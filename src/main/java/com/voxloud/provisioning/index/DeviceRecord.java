@@ -0,0 +1,96 @@
+package com.voxloud.provisioning.index;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.repository.DeviceVersion;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Immutable copy of one device row held by the {@link InMemoryDeviceIndex}. The MAC address is
+ * the index key and is not stored again.
+ */
+@Getter
+final class DeviceRecord implements DeviceVersion {
+    /**
+     * Marks a device removed since the current snapshot was built.
+     */
+    static final DeviceRecord REMOVED = new DeviceRecord(null, null, null, null, null, null, -1, null);
+
+    private static final int OBJECT_HEADER = 12;
+    private static final int REFERENCE = 4;
+    private static final int ARRAY_HEADER = 16;
+
+    private final Device.DeviceModel model;
+    private final String username;
+    private final String password;
+    private final String overrideFragment;
+    private final byte[] overrideCompiled;
+    private final String groupName;
+    private final long version;
+    private final Instant updatedAt;
+
+    private DeviceRecord(Device.DeviceModel model, String username, String password, String overrideFragment,
+                         byte[] overrideCompiled, String groupName, long version, Instant updatedAt) {
+        this.model = model;
+        this.username = username;
+        this.password = password;
+        this.overrideFragment = overrideFragment;
+        this.overrideCompiled = overrideCompiled;
+        this.groupName = groupName;
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    static DeviceRecord of(Device device) {
+        // Group names repeat across many devices, so records share one interned copy.
+        String groupName = device.getGroupName() != null ? device.getGroupName().intern() : null;
+        return new DeviceRecord(device.getModel(), device.getUsername(), device.getPassword(),
+                device.getOverrideFragment(), device.getOverrideCompiled(), groupName, device.getVersion(), device.getUpdatedAt());
+    }
+
+    Device toDevice(MacAddress macAddress) {
+        Device device = new Device();
+        device.setMacAddress(macAddress);
+        device.setModel(model);
+        device.setUsername(username);
+        device.setPassword(password);
+        device.setOverrideFragment(overrideFragment);
+        device.setOverrideCompiled(overrideCompiled);
+        device.setGroupName(groupName);
+        device.setVersion(version);
+        device.setUpdatedAt(updatedAt);
+        return device;
+    }
+
+    /**
+     * Whether this record and {@code other} describe the same revision of the row.
+     */
+    boolean isSameRevision(DeviceRecord other) {
+        return other != null && version == other.version && Objects.equals(updatedAt, other.updatedAt);
+    }
+
+    /**
+     * Approximate retained heap size in bytes, assuming compressed references and Latin-1 strings.
+     * The shared group name is not counted.
+     */
+    long estimatedSize() {
+        long size = align(OBJECT_HEADER + 7 * REFERENCE + Long.BYTES);
+        size += updatedAt != null ? align(OBJECT_HEADER + Long.BYTES + Integer.BYTES) : 0;
+        size += overrideCompiled != null ? align(ARRAY_HEADER + overrideCompiled.length) : 0;
+        return size + stringSize(username) + stringSize(password) + stringSize(overrideFragment);
+    }
+
+    private static long stringSize(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return align(OBJECT_HEADER + REFERENCE + 2 * Integer.BYTES) + align(ARRAY_HEADER + value.length());
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,99 @@
+package com.voxloud.provisioning.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable open-addressing hash table from packed MAC address to {@link DeviceRecord}. Keys are
+ * held in a primitive array, so a lookup neither boxes nor follows more than one reference per
+ * probe, and a published snapshot can be read by any number of threads without synchronization.
+ */
+final class DeviceSnapshot {
+    static final DeviceSnapshot EMPTY = build(Map.of());
+
+    private static final long FREE = -1;
+    private static final int ARRAY_HEADER = 16;
+
+    private final long[] keys;
+    private final DeviceRecord[] records;
+    private final int mask;
+    private final int size;
+    private final long estimatedSize;
+
+    private DeviceSnapshot(long[] keys, DeviceRecord[] records, int size, long estimatedRecordsSize) {
+        this.keys = keys;
+        this.records = records;
+        this.mask = keys.length - 1;
+        this.size = size;
+        this.estimatedSize = estimatedRecordsSize + 2L * ARRAY_HEADER + (long) keys.length * (Long.BYTES + 4);
+    }
+
+    /**
+     * Builds a snapshot of {@code records}, skipping {@link DeviceRecord#REMOVED} entries.
+     */
+    static DeviceSnapshot build(Map<Long, DeviceRecord> records) {
+        int capacity = Integer.highestOneBit(Math.max(2, records.size() * 2 - 1)) << 1;
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        DeviceRecord[] values = new DeviceRecord[capacity];
+        int mask = capacity - 1;
+        int size = 0;
+        long recordsSize = 0;
+        for (Map.Entry<Long, DeviceRecord> entry : records.entrySet()) {
+            DeviceRecord record = entry.getValue();
+            if (record == DeviceRecord.REMOVED) {
+                continue;
+            }
+            long key = entry.getKey();
+            int slot = slot(key, mask);
+            while (keys[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = record;
+            size++;
+            recordsSize += record.estimatedSize();
+        }
+        return new DeviceSnapshot(keys, values, size, recordsSize);
+    }
+
+    DeviceRecord get(long key) {
+        int slot = slot(key, mask);
+        long candidate;
+        while ((candidate = keys[slot]) != FREE) {
+            if (candidate == key) {
+                return records[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a new snapshot holding this snapshot's records overlaid with {@code changes}.
+     */
+    DeviceSnapshot merge(Map<Long, DeviceRecord> changes) {
+        Map<Long, DeviceRecord> merged = new HashMap<>((int) ((size + changes.size()) / 0.75f) + 1);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) {
+                merged.put(keys[slot], records[slot]);
+            }
+        }
+        merged.putAll(changes);
+        return build(merged);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long estimatedSize() {
+        return estimatedSize;
+    }
+
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
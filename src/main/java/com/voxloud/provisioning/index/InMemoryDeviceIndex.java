@@ -0,0 +1,236 @@
+package com.voxloud.provisioning.index;
+
+import com.voxloud.provisioning.cache.RenderedConfigCache;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.event.DeviceChangedEvent;
+import com.voxloud.provisioning.repository.DeviceLookup;
+import com.voxloud.provisioning.repository.DeviceRepository;
+import com.voxloud.provisioning.repository.DeviceVersion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link DeviceLookup} answering from an in-memory copy of the whole device inventory, enabled by
+ * {@code provisioning.index.enabled=true}.
+ * <p>
+ * The inventory is loaded once the application is ready and kept current by a change feed: device
+ * writes made through this instance are applied when their transaction commits, rows written
+ * elsewhere are picked up by polling {@code updated_at}, and a periodic full reload catches rows
+ * deleted elsewhere. Until the first load completes, lookups go to the database.
+ * <p>
+ * Readers never lock. The index is an immutable {@link DeviceSnapshot} plus a small concurrent map
+ * of changes made since it was built; once the change map grows past
+ * {@code provisioning.index.delta-threshold} entries, both are merged into a new snapshot and the
+ * pair is swapped in with a single volatile write. Only writers serialize on the index monitor.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "provisioning.index.enabled", havingValue = "true")
+public class InMemoryDeviceIndex implements DeviceLookup {
+    private final DeviceRepository deviceRepository;
+    private final RenderedConfigCache renderedConfigCache;
+    private final TaskScheduler taskScheduler;
+    private final Duration pollInterval;
+    private final Duration fullReloadInterval;
+    private final int deltaThreshold;
+    private final int loadPageSize;
+
+    private volatile State state = new State(DeviceSnapshot.EMPTY);
+    private volatile boolean ready;
+    private volatile Set<MacAddress> changedDuringReload;
+    private Instant watermark;
+
+    public InMemoryDeviceIndex(DeviceRepository deviceRepository,
+                               RenderedConfigCache renderedConfigCache,
+                               TaskScheduler taskScheduler,
+                               MeterRegistry meterRegistry,
+                               @Value("${provisioning.index.poll-interval}") Duration pollInterval,
+                               @Value("${provisioning.index.full-reload-interval}") Duration fullReloadInterval,
+                               @Value("${provisioning.index.delta-threshold}") int deltaThreshold,
+                               @Value("${provisioning.index.load-page-size}") int loadPageSize) {
+        this.deviceRepository = deviceRepository;
+        this.renderedConfigCache = renderedConfigCache;
+        this.taskScheduler = taskScheduler;
+        this.pollInterval = pollInterval;
+        this.fullReloadInterval = fullReloadInterval;
+        this.deltaThreshold = deltaThreshold;
+        this.loadPageSize = loadPageSize;
+
+        Gauge.builder("provisioning.index.devices", this, index -> index.state.snapshot.size())
+                .description("Devices in the current in-memory index snapshot")
+                .register(meterRegistry);
+        Gauge.builder("provisioning.index.pending.changes", this, index -> index.state.delta.size())
+                .description("Device changes not yet merged into the index snapshot")
+                .register(meterRegistry);
+        Gauge.builder("provisioning.index.device.size", this, index -> index.state.bytesPerDevice())
+                .description("Estimated heap retained by the in-memory device index per device")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reload();
+        taskScheduler.scheduleWithFixedDelay(this::poll, Instant.now().plus(pollInterval), pollInterval);
+        taskScheduler.scheduleWithFixedDelay(this::reload, Instant.now().plus(fullReloadInterval), fullReloadInterval);
+    }
+
+    @Override
+    public Optional<Device> findDevice(MacAddress macAddress) {
+        if (!ready) {
+            return deviceRepository.findById(macAddress);
+        }
+        DeviceRecord record = state.get(macAddress.toLong());
+        return record != null ? Optional.of(record.toDevice(macAddress)) : Optional.empty();
+    }
+
+    @Override
+    public Optional<DeviceVersion> findVersion(MacAddress macAddress) {
+        if (!ready) {
+            return deviceRepository.findVersionByMacAddress(macAddress);
+        }
+        return Optional.ofNullable(state.get(macAddress.toLong()));
+    }
+
+    /**
+     * Re-reads a device written through this instance once its transaction has committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        MacAddress macAddress = event.getMacAddress();
+        Set<MacAddress> pending = changedDuringReload;
+        if (pending != null) {
+            pending.add(macAddress);
+        }
+        if (ready) {
+            refresh(macAddress);
+        }
+    }
+
+    /**
+     * Replaces the index with a fresh copy of the device table.
+     */
+    void reload() {
+        Instant started = Instant.now();
+        changedDuringReload = ConcurrentHashMap.newKeySet();
+        try {
+            Map<Long, DeviceRecord> records = new HashMap<>();
+            MacAddress after = null;
+            List<Device> page;
+            do {
+                page = deviceRepository.findPageAfter(after, null, PageRequest.ofSize(loadPageSize));
+                for (Device device : page) {
+                    records.put(device.getMacAddress().toLong(), DeviceRecord.of(device));
+                }
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getMacAddress();
+                }
+            } while (page.size() == loadPageSize);
+
+            DeviceSnapshot snapshot = DeviceSnapshot.build(records);
+            synchronized (this) {
+                state = new State(snapshot);
+                watermark = started.minus(pollInterval);
+                ready = true;
+            }
+            log.info("Loaded {} devices into the in-memory index in {} ms, ~{} bytes per device", snapshot.size(),
+                    Duration.between(started, Instant.now()).toMillis(), state.bytesPerDevice());
+        } finally {
+            Set<MacAddress> pending = changedDuringReload;
+            changedDuringReload = null;
+            pending.forEach(this::refresh);
+        }
+        poll();
+    }
+
+    /**
+     * Applies rows written since the last poll, including those written by other instances.
+     */
+    void poll() {
+        if (!ready) {
+            return;
+        }
+        Instant since;
+        synchronized (this) {
+            since = watermark;
+        }
+        Instant latest = since;
+        for (Device device : deviceRepository.findByUpdatedAtGreaterThanEqual(since)) {
+            apply(device.getMacAddress(), DeviceRecord.of(device));
+            if (device.getUpdatedAt() != null && device.getUpdatedAt().isAfter(latest)) {
+                latest = device.getUpdatedAt();
+            }
+        }
+        synchronized (this) {
+            // Rows committed by other instances may carry slightly older timestamps than the
+            // newest one seen, so each poll re-reads one interval back.
+            Instant next = latest.minus(pollInterval);
+            if (next.isAfter(watermark)) {
+                watermark = next;
+            }
+        }
+    }
+
+    private void refresh(MacAddress macAddress) {
+        DeviceRecord record = deviceRepository.findById(macAddress).map(DeviceRecord::of).orElse(DeviceRecord.REMOVED);
+        apply(macAddress, record);
+    }
+
+    private void apply(MacAddress macAddress, DeviceRecord record) {
+        long key = macAddress.toLong();
+        synchronized (this) {
+            State current = state;
+            DeviceRecord existing = current.get(key);
+            if (record == DeviceRecord.REMOVED ? existing == null : record.isSameRevision(existing)) {
+                return;
+            }
+            current.delta.put(key, record);
+            if (current.delta.size() >= deltaThreshold) {
+                state = new State(current.snapshot.merge(current.delta));
+            }
+        }
+        // Invalidated after the index changed, so a render of the old record racing with this
+        // update cannot be cached under the new invalidation stamp.
+        renderedConfigCache.invalidate(macAddress);
+    }
+
+    private static final class State {
+        private final DeviceSnapshot snapshot;
+        private final Map<Long, DeviceRecord> delta = new ConcurrentHashMap<>();
+
+        private State(DeviceSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        DeviceRecord get(long key) {
+            DeviceRecord record = delta.isEmpty() ? null : delta.get(key);
+            if (record == null) {
+                record = snapshot.get(key);
+            }
+            return record == DeviceRecord.REMOVED ? null : record;
+        }
+
+        double bytesPerDevice() {
+            return snapshot.size() == 0 ? 0 : (double) snapshot.estimatedSize() / snapshot.size();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.voxloud.provisioning.invalidation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link InvalidationTransport} between instances running in the same JVM, such as several
+ * application contexts of a test. Enabled by {@code provisioning.invalidation.transport=in-memory}.
+ * Every transport connected to a {@link Hub} receives what any of them publishes.
+ */
+@Component
+@ConditionalOnProperty(name = "provisioning.invalidation.transport", havingValue = "in-memory")
+public class InMemoryInvalidationTransport implements InvalidationTransport, AutoCloseable {
+    /**
+     * The hub of the transports created as beans.
+     */
+    public static final Hub SHARED = new Hub();
+
+    private final Hub hub;
+    private final Queue<Invalidation> inbox = new ConcurrentLinkedQueue<>();
+
+    public InMemoryInvalidationTransport() {
+        this(SHARED);
+    }
+
+    public InMemoryInvalidationTransport(Hub hub) {
+        this.hub = hub;
+        hub.transports.add(this);
+    }
+
+    @Override
+    public void publish(List<Invalidation> invalidations) {
+        for (InMemoryInvalidationTransport transport : hub.transports) {
+            transport.inbox.addAll(invalidations);
+        }
+    }
+
+    @Override
+    public List<Invalidation> receive(int limit) {
+        List<Invalidation> received = new ArrayList<>();
+        Invalidation invalidation;
+        while (received.size() < limit && (invalidation = inbox.poll()) != null) {
+            received.add(invalidation);
+        }
+        return received;
+    }
+
+    @Override
+    public void close() {
+        hub.transports.remove(this);
+    }
+
+    public static final class Hub {
+        private final List<InMemoryInvalidationTransport> transports = new CopyOnWriteArrayList<>();
+    }
+}
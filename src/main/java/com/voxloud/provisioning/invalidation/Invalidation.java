@@ -0,0 +1,30 @@
+package com.voxloud.provisioning.invalidation;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * A committed change announced to every instance: one device, or all of them when
+ * {@code macAddress} is {@code null}. {@code origin} is the node id of the instance that made it and
+ * {@code publishedAt} the time it committed there.
+ */
+@Value
+public class Invalidation {
+    MacAddress macAddress;
+    String origin;
+    Instant publishedAt;
+
+    public static Invalidation device(MacAddress macAddress, String origin) {
+        return new Invalidation(macAddress, origin, Instant.now());
+    }
+
+    public static Invalidation all(String origin) {
+        return new Invalidation(null, origin, Instant.now());
+    }
+
+    public boolean isGlobal() {
+        return macAddress == null;
+    }
+}
@@ -0,0 +1,301 @@
+package com.voxloud.provisioning.invalidation;
+
+import com.voxloud.provisioning.event.AllDevicesChangedEvent;
+import com.voxloud.provisioning.event.DeviceChangedEvent;
+import com.voxloud.provisioning.event.SettingsChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Keeps the caches of the instances sharing the device table consistent with each other.
+ * <p>
+ * With a transactional {@link InvalidationTransport} the device changes of a transaction are
+ * published in one batch inside it, so they commit or roll back with the devices and survive a
+ * crash right after the commit. Other transports, changes written outside a transaction and reloads
+ * of the shared settings are queued once committed and published on the next poll; those still
+ * queued when the instance dies are lost. Every {@code provisioning.invalidation.poll-interval} the
+ * bus also reads what the other instances published. Those are re-published locally as
+ * remote {@link DeviceChangedEvent}s, or as an {@link AllDevicesChangedEvent} for a global
+ * invalidation, so every cache drops them the same way as its own changes; remote events are never
+ * queued again. An instance that could not reach the transport for half of
+ * {@code provisioning.invalidation.retention} may have missed changes that are no longer kept, and
+ * drops everything once it reaches it again.
+ * <p>
+ * A change is seen by the other instances at most about two poll intervals after it committed,
+ * unless the transport is unreachable; {@code provisioning.invalidation.staleness} reports how long
+ * ago this instance last received everything published before. Polling runs on a scheduler thread of
+ * its own, so it is not held up by the other periodic tasks.
+ */
+@Slf4j
+@Component
+public class InvalidationBus implements TransactionExecutionListener {
+    private final InvalidationTransport transport;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+    private final String nodeId;
+    private final Duration pollInterval;
+    private final Duration retention;
+    private final int batchSize;
+
+    private final Queue<Invalidation> pending = new ConcurrentLinkedQueue<>();
+    private final Counter publishedDevices;
+    private final Counter publishedAll;
+    private final Counter receivedDevices;
+    private final Counter receivedAll;
+    private final Timer lag;
+
+    private volatile Instant caughtUp = Instant.now();
+
+    public InvalidationBus(ObjectProvider<InvalidationTransport> transport,
+                           ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry,
+                           @Value("${provisioning.invalidation.node-id}") String nodeId,
+                           @Value("${provisioning.invalidation.poll-interval}") Duration pollInterval,
+                           @Value("${provisioning.invalidation.retention}") Duration retention,
+                           @Value("${provisioning.invalidation.batch-size}") int batchSize) {
+        this.transport = transport.getIfAvailable();
+        this.eventPublisher = eventPublisher;
+        this.nodeId = nodeId;
+        this.pollInterval = pollInterval;
+        this.retention = retention;
+        this.batchSize = batchSize;
+
+        publishedDevices = invalidationCounter(meterRegistry, "published", "device");
+        publishedAll = invalidationCounter(meterRegistry, "published", "all");
+        receivedDevices = invalidationCounter(meterRegistry, "received", "device");
+        receivedAll = invalidationCounter(meterRegistry, "received", "all");
+        lag = Timer.builder("provisioning.invalidation.lag")
+                .description("Time from a change committing on another instance to its invalidation here")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("provisioning.invalidation.staleness", this, InvalidationBus::staleness)
+                .description("Time since this instance last received every invalidation published before")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("provisioning.invalidation.pending", pending, Queue::size)
+                .description("Invalidations committed here and not yet published")
+                .register(meterRegistry);
+
+        if (this.transport != null) {
+            // Marks the starting point before any cache can be filled.
+            this.transport.receive(batchSize);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (transport == null) {
+            return;
+        }
+        taskScheduler.setThreadNamePrefix("invalidation-");
+        taskScheduler.initialize();
+        taskScheduler.scheduleWithFixedDelay(this::poll, Instant.now().plus(pollInterval), pollInterval);
+        Duration purgeInterval = retention.dividedBy(4);
+        taskScheduler.scheduleWithFixedDelay(this::purge, Instant.now().plus(purgeInterval), purgeInterval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        taskScheduler.shutdown();
+    }
+
+    /**
+     * Collects a change written through this instance into the outbox of its transaction, or queues
+     * it if there is no transaction.
+     */
+    @EventListener
+    public void onDeviceChanged(DeviceChangedEvent event) {
+        if (transport == null || event.isRemote()) {
+            return;
+        }
+        Invalidation invalidation = Invalidation.device(event.getMacAddress(), nodeId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pending.add(invalidation);
+            return;
+        }
+        outbox().add(invalidation);
+    }
+
+    /**
+     * Publishes the outbox of a transaction that is about to commit. This runs after every {@link
+     * TransactionSynchronization} has been told about the commit but before the JPA flush, whose
+     * changes therefore follow one by one.
+     */
+    @Override
+    public void beforeCommit(TransactionExecution transaction) {
+        if (transport != null && transport.isTransactional() && transaction.isNewTransaction()
+                && !transaction.isReadOnly() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            outbox().commit();
+        }
+    }
+
+    private Outbox outbox() {
+        Outbox outbox = (Outbox) TransactionSynchronizationManager.getResource(this);
+        if (outbox == null) {
+            outbox = new Outbox();
+            TransactionSynchronizationManager.bindResource(this, outbox);
+            TransactionSynchronizationManager.registerSynchronization(outbox);
+        }
+        return outbox;
+    }
+
+    @EventListener
+    public void onSettingsChanged(SettingsChangedEvent event) {
+        if (transport != null) {
+            pending.add(Invalidation.all(nodeId));
+        }
+    }
+
+    /**
+     * Publishes the queued invalidations and applies those published by other instances.
+     */
+    void poll() {
+        Instant started = Instant.now();
+        flush();
+        try {
+            List<Invalidation> received;
+            do {
+                received = transport.receive(batchSize);
+                received.forEach(this::apply);
+            } while (received.size() >= batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Failed to receive cache invalidations, last up to date {}", caughtUp, e);
+            return;
+        }
+        Instant previous = caughtUp;
+        caughtUp = started;
+        if (previous.plus(retention.dividedBy(2)).isBefore(started)) {
+            log.warn("Cache invalidations were unavailable since {}, dropping every cached file", previous);
+            eventPublisher.publishEvent(new AllDevicesChangedEvent());
+        }
+    }
+
+    private void flush() {
+        List<Invalidation> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        do {
+            batch.clear();
+            Invalidation invalidation;
+            while (batch.size() < batchSize && (invalidation = pending.poll()) != null) {
+                batch.add(invalidation);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transport.publish(batch);
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish {} cache invalidations, retrying", batch.size(), e);
+                pending.addAll(batch);
+                return;
+            }
+            for (Invalidation published : batch) {
+                (published.isGlobal() ? publishedAll : publishedDevices).increment();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    private void apply(Invalidation invalidation) {
+        if (nodeId.equals(invalidation.getOrigin())) {
+            return;
+        }
+        lag.record(Duration.between(invalidation.getPublishedAt(), Instant.now()));
+        if (invalidation.isGlobal()) {
+            receivedAll.increment();
+            eventPublisher.publishEvent(new AllDevicesChangedEvent());
+        } else {
+            receivedDevices.increment();
+            eventPublisher.publishEvent(new DeviceChangedEvent(invalidation.getMacAddress(), true));
+        }
+    }
+
+    private void purge() {
+        try {
+            transport.purge(Instant.now().minus(retention));
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge old cache invalidations", e);
+        }
+    }
+
+    private double staleness() {
+        return transport != null ? Duration.between(caughtUp, Instant.now()).toMillis() / 1000.0 : 0;
+    }
+
+    /**
+     * The invalidations of one transaction. A transactional transport gets them in one batch just
+     * before the commit; changes flushed by the commit itself, as JPA writes usually are, come after
+     * that and are published one by one. Other transports get them queued once committed.
+     */
+    private final class Outbox implements TransactionSynchronization {
+        private final List<Invalidation> invalidations = new ArrayList<>();
+        private boolean committing;
+        private int published;
+
+        void add(Invalidation invalidation) {
+            if (committing && transport.isTransactional()) {
+                transport.publish(List.of(invalidation));
+                published++;
+            } else {
+                invalidations.add(invalidation);
+            }
+        }
+
+        void commit() {
+            committing = true;
+            if (!invalidations.isEmpty()) {
+                transport.publish(List.copyOf(invalidations));
+                published += invalidations.size();
+                invalidations.clear();
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            publishedDevices.increment(published);
+            pending.addAll(invalidations);
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(InvalidationBus.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(InvalidationBus.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(InvalidationBus.this);
+        }
+    }
+
+    private static Counter invalidationCounter(MeterRegistry registry, String direction, String scope) {
+        return Counter.builder("provisioning.invalidation." + direction)
+                .description("Cache invalidations exchanged with other instances")
+                .tag("scope", scope)
+                .register(registry);
+    }
+}
@@ -0,0 +1,36 @@
+package com.voxloud.provisioning.invalidation;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Carries {@link Invalidation}s between the instances sharing the device table. Selected by
+ * {@code provisioning.invalidation.transport}.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Makes {@code invalidations} visible to every instance, this one included.
+     */
+    void publish(List<Invalidation> invalidations);
+
+    /**
+     * Whether {@link #publish} takes part in the caller's transaction, so that invalidations
+     * published along with a device write commit or roll back with it.
+     */
+    default boolean isTransactional() {
+        return false;
+    }
+
+    /**
+     * Up to {@code limit} invalidations published since the previous call. Those published before
+     * the first call may be left out: an instance that starts loads data that already reflects them.
+     */
+    List<Invalidation> receive(int limit);
+
+    /**
+     * Forgets invalidations published before {@code before}.
+     */
+    default void purge(Instant before) {
+    }
+}
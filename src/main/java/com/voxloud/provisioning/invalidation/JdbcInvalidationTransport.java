@@ -0,0 +1,132 @@
+package com.voxloud.provisioning.invalidation;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link InvalidationTransport} over the {@code device_invalidation} change log in the shared
+ * database, the default ({@code provisioning.invalidation.transport=jdbc}).
+ * <p>
+ * Every invalidation is a row with an increasing id; each instance tails the table from the
+ * highest id it has read. Ids are allocated when a row is inserted but become visible when its
+ * transaction commits, so a lower id can show up after a higher one has been read. The ids skipped
+ * over are therefore looked up again on every call until they appear or
+ * {@code provisioning.invalidation.gap-timeout} has passed, after which they are taken for rolled
+ * back inserts. Since invalidations are written in the transaction of the device write, the gap
+ * timeout has to be longer than the longest such transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "provisioning.invalidation.transport", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcInvalidationTransport implements InvalidationTransport {
+    private static final String INSERT =
+            "INSERT INTO device_invalidation (mac_address, origin, created_at) VALUES (?, ?, ?)";
+    private static final String SELECT = "SELECT id, mac_address, origin, created_at FROM device_invalidation ";
+    private static final String SELECT_AFTER = SELECT + "WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String MAX_ID = "SELECT COALESCE(MAX(id), 0) FROM device_invalidation";
+    private static final String PURGE = "DELETE FROM device_invalidation WHERE created_at < ?";
+    private static final int MAX_TRACKED_GAP = 10_000;
+    private static final int GAP_QUERY_SIZE = 500;
+    private static final RowMapper<Row> ROW_MAPPER = (resultSet, rowNum) -> {
+        long macAddress = resultSet.getLong("mac_address");
+        return new Row(resultSet.getLong("id"), new Invalidation(
+                resultSet.wasNull() ? null : MacAddress.of(macAddress),
+                resultSet.getString("origin"),
+                resultSet.getObject("created_at", OffsetDateTime.class).toInstant()));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration gapTimeout;
+
+    private long position = -1;
+    private final Map<Long, Instant> gaps = new HashMap<>();
+
+    public JdbcInvalidationTransport(JdbcTemplate jdbcTemplate,
+                                     @Value("${provisioning.invalidation.gap-timeout}") Duration gapTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.gapTimeout = gapTimeout;
+    }
+
+    @Override
+    @Transactional
+    public void publish(List<Invalidation> invalidations) {
+        jdbcTemplate.batchUpdate(INSERT, invalidations, invalidations.size(), (statement, invalidation) -> {
+            if (invalidation.isGlobal()) {
+                statement.setNull(1, Types.BIGINT);
+            } else {
+                statement.setLong(1, invalidation.getMacAddress().toLong());
+            }
+            statement.setString(2, invalidation.getOrigin());
+            statement.setObject(3, invalidation.getPublishedAt().atOffset(ZoneOffset.UTC));
+        });
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+
+    @Override
+    public synchronized List<Invalidation> receive(int limit) {
+        if (position < 0) {
+            position = jdbcTemplate.queryForObject(MAX_ID, Long.class);
+            return List.of();
+        }
+        Instant now = Instant.now();
+        List<Invalidation> received = new ArrayList<>();
+        gaps.values().removeIf(missedAt -> missedAt.plus(gapTimeout).isBefore(now));
+        if (!gaps.isEmpty()) {
+            List<Long> missing = new ArrayList<>(gaps.keySet());
+            Collections.sort(missing);
+            for (int from = 0; from < missing.size(); from += GAP_QUERY_SIZE) {
+                List<Long> ids = missing.subList(from, Math.min(from + GAP_QUERY_SIZE, missing.size()));
+                String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+                for (Row row : jdbcTemplate.query(SELECT + "WHERE id IN (" + placeholders + ") ORDER BY id",
+                        ROW_MAPPER, ids.toArray())) {
+                    gaps.remove(row.id);
+                    received.add(row.invalidation);
+                }
+            }
+        }
+        for (Row row : jdbcTemplate.query(SELECT_AFTER, ROW_MAPPER, position, limit)) {
+            if (row.id - position - 1 <= MAX_TRACKED_GAP) {
+                for (long missing = position + 1; missing < row.id; missing++) {
+                    gaps.put(missing, now);
+                }
+            }
+            position = row.id;
+            received.add(row.invalidation);
+        }
+        return received;
+    }
+
+    @Override
+    public void purge(Instant before) {
+        jdbcTemplate.update(PURGE, before.atOffset(ZoneOffset.UTC));
+    }
+
+    private static final class Row {
+        private final long id;
+        private final Invalidation invalidation;
+
+        private Row(long id, Invalidation invalidation) {
+            this.id = id;
+            this.invalidation = invalidation;
+        }
+    }
+}
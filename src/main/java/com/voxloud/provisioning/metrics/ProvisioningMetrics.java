@@ -0,0 +1,161 @@
+package com.voxloud.provisioning.metrics;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.util.OverrideFormat;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers and counters of the provisioning pipeline.
+ * <p>
+ * Every meter is registered up front and looked up by array index, so recording a stage costs two
+ * {@code System.nanoTime()} calls and a histogram update, with no tag or registry lookups on the
+ * request path. With {@code provisioning.metrics.detailed-tags=false} the per-model and
+ * per-override-format series collapse into one series per stage.
+ */
+@Component
+public class ProvisioningMetrics {
+    private static final Device.DeviceModel[] MODELS = Device.DeviceModel.values();
+    private static final OverrideFormat[] FORMATS = OverrideFormat.values();
+    private static final int UNKNOWN_MODEL = MODELS.length;
+
+    private final Timer deviceLookupFound;
+    private final Timer deviceLookupMissing;
+    private final Timer versionLookupFound;
+    private final Timer versionLookupMissing;
+    private final Timer[][] parseTimers;
+    private final Timer[][] renderTimers;
+    private final Counter deviceCoalesced;
+    private final Counter versionCoalesced;
+    private final Counter deviceNotFound;
+    private final Counter parseErrors;
+    private final Counter unsupportedModel;
+
+    public ProvisioningMetrics(MeterRegistry registry,
+                               @Value("${provisioning.metrics.detailed-tags}") boolean detailedTags) {
+        deviceLookupFound = lookupTimer(registry, "device", "found");
+        deviceLookupMissing = lookupTimer(registry, "device", "missing");
+        versionLookupFound = lookupTimer(registry, "version", "found");
+        versionLookupMissing = lookupTimer(registry, "version", "missing");
+        parseTimers = stageTimers(registry, "provisioning.parse",
+                "Parsing of a device override fragment", detailedTags);
+        renderTimers = stageTimers(registry, "provisioning.render",
+                "Rendering of a provisioning file, including override parsing on a parse cache miss",
+                detailedTags);
+        deviceCoalesced = coalescedCounter(registry, "device");
+        versionCoalesced = coalescedCounter(registry, "version");
+        deviceNotFound = errorCounter(registry, "not_found");
+        parseErrors = errorCounter(registry, "parse_error");
+        unsupportedModel = errorCounter(registry, "unsupported_model");
+    }
+
+    /**
+     * Metrics recorded nowhere, for components built outside of the application context.
+     */
+    public static ProvisioningMetrics noop() {
+        return new ProvisioningMetrics(new CompositeMeterRegistry(), false);
+    }
+
+    public void recordDeviceLookup(long startNanos, boolean found) {
+        (found ? deviceLookupFound : deviceLookupMissing).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordVersionLookup(long startNanos, boolean found) {
+        (found ? versionLookupFound : versionLookupMissing).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordParse(Device.DeviceModel model, OverrideFormat format, long startNanos) {
+        parseTimers[modelIndex(model)][format.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRender(Device.DeviceModel model, OverrideFormat format, long startNanos) {
+        renderTimers[modelIndex(model)][format.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a request that shared the in-flight device lookup and render of an identical request.
+     */
+    public void deviceLookupCoalesced() {
+        deviceCoalesced.increment();
+    }
+
+    /**
+     * Counts a request that shared the in-flight version lookup of an identical request.
+     */
+    public void versionLookupCoalesced() {
+        versionCoalesced.increment();
+    }
+
+    public void deviceNotFound() {
+        deviceNotFound.increment();
+    }
+
+    public void parseError() {
+        parseErrors.increment();
+    }
+
+    public void unsupportedModel() {
+        unsupportedModel.increment();
+    }
+
+    private static int modelIndex(Device.DeviceModel model) {
+        return model != null ? model.ordinal() : UNKNOWN_MODEL;
+    }
+
+    private static Timer lookupTimer(MeterRegistry registry, String query, String outcome) {
+        return Timer.builder("provisioning.lookup")
+                .description("Database lookup of a device row")
+                .tags("query", query, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer[][] stageTimers(MeterRegistry registry, String name, String description,
+                                         boolean detailedTags) {
+        Timer[][] timers = new Timer[MODELS.length + 1][FORMATS.length];
+        Timer untagged = detailedTags ? null : stageTimer(registry, name, description, Tags.empty());
+        for (int model = 0; model <= MODELS.length; model++) {
+            for (OverrideFormat format : FORMATS) {
+                timers[model][format.ordinal()] = detailedTags
+                        ? stageTimer(registry, name, description, Tags.of(
+                                "model", model == UNKNOWN_MODEL ? "unknown" : MODELS[model].name(),
+                                "override", tagValue(format)))
+                        : untagged;
+            }
+        }
+        return timers;
+    }
+
+    private static Timer stageTimer(MeterRegistry registry, String name, String description, Tags tags) {
+        return Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter coalescedCounter(MeterRegistry registry, String query) {
+        return Counter.builder("provisioning.coalesced")
+                .description("Requests answered by the in-flight lookup of an identical concurrent request")
+                .tag("query", query)
+                .register(registry);
+    }
+
+    private static Counter errorCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("provisioning.errors")
+                .description("Provisioning requests that could not be answered with a file")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private static String tagValue(OverrideFormat format) {
+        return format.name().toLowerCase();
+    }
+}
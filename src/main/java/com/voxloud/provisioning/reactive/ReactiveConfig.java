@@ -0,0 +1,76 @@
+package com.voxloud.provisioning.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+
+/**
+ * Infrastructure of the reactive runtime, activated by the {@code reactive} profile.
+ * <p>
+ * The R2DBC pool is created here rather than by Spring Boot's R2DBC auto-configuration, which is
+ * excluded, and is deliberately not exposed as a {@code ConnectionFactory} bean: either would make
+ * Boot back off from the JDBC {@code DataSource} and JPA transaction manager that device writes
+ * still rely on. Netty is declared explicitly because Tomcat, also on the classpath, would
+ * otherwise be preferred as the reactive server.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ReactiveConnectionPool reactiveConnectionPool(
+            @Value("${provisioning.reactive.r2dbc.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password,
+            @Value("${provisioning.reactive.r2dbc.pool.max-size}") int maxSize,
+            @Value("${provisioning.reactive.r2dbc.pool.max-acquire-time}") Duration maxAcquireTime) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        return new ReactiveConnectionPool(new ConnectionPool(
+                ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                        .initialSize(Math.min(4, maxSize))
+                        .maxSize(maxSize)
+                        .maxAcquireTime(maxAcquireTime)
+                        .build()));
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(ReactiveConnectionPool reactiveConnectionPool) {
+        return DatabaseClient.create(reactiveConnectionPool.getConnectionPool());
+    }
+
+    /**
+     * Owns the R2DBC pool without registering it as a {@code ConnectionFactory} bean.
+     */
+    public static final class ReactiveConnectionPool {
+        private final ConnectionPool connectionPool;
+
+        ReactiveConnectionPool(ConnectionPool connectionPool) {
+            this.connectionPool = connectionPool;
+        }
+
+        ConnectionPool getConnectionPool() {
+            return connectionPool;
+        }
+
+        public void dispose() {
+            connectionPool.dispose();
+        }
+    }
+}
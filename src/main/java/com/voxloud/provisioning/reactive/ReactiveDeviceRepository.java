@@ -0,0 +1,80 @@
+package com.voxloud.provisioning.reactive;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.repository.DeviceVersion;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+/**
+ * Non-blocking reads of the {@code device} table over R2DBC. Writes keep going through JPA so that
+ * entity listeners invalidate caches as usual.
+ */
+@Repository
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveDeviceRepository {
+    private static final String SELECT_DEVICE = "SELECT mac_address, model, override_fragment, override_compiled, "
+            + "username, password, group_name, version, updated_at FROM device WHERE mac_address = :macAddress";
+
+    private static final String SELECT_VERSION = "SELECT model, group_name, version, updated_at FROM device "
+            + "WHERE mac_address = :macAddress";
+
+    private final DatabaseClient reactiveDatabaseClient;
+
+    public Mono<Device> findById(MacAddress macAddress) {
+        return reactiveDatabaseClient.sql(SELECT_DEVICE)
+                .bind("macAddress", macAddress.toLong())
+                .map(ReactiveDeviceRepository::toDevice)
+                .one();
+    }
+
+    public Mono<DeviceVersion> findVersionById(MacAddress macAddress) {
+        return reactiveDatabaseClient.sql(SELECT_VERSION)
+                .bind("macAddress", macAddress.toLong())
+                .map(row -> (DeviceVersion) new VersionRow(
+                        Device.DeviceModel.valueOf(row.get("model", String.class)),
+                        row.get("group_name", String.class), version(row), updatedAt(row)))
+                .one();
+    }
+
+    private static Device toDevice(Readable row) {
+        Device device = new Device();
+        device.setMacAddress(MacAddress.of(row.get("mac_address", Long.class)));
+        device.setModel(Device.DeviceModel.valueOf(row.get("model", String.class)));
+        device.setOverrideFragment(row.get("override_fragment", String.class));
+        device.setOverrideCompiled(row.get("override_compiled", byte[].class));
+        device.setUsername(row.get("username", String.class));
+        device.setPassword(row.get("password", String.class));
+        device.setGroupName(row.get("group_name", String.class));
+        device.setVersion(version(row));
+        device.setUpdatedAt(updatedAt(row));
+        return device;
+    }
+
+    private static long version(Readable row) {
+        Long version = row.get("version", Long.class);
+        return version != null ? version : 0;
+    }
+
+    private static Instant updatedAt(Readable row) {
+        OffsetDateTime updatedAt = row.get("updated_at", OffsetDateTime.class);
+        return updatedAt != null ? updatedAt.toInstant() : null;
+    }
+
+    @Value
+    private static class VersionRow implements DeviceVersion {
+        Device.DeviceModel model;
+        String groupName;
+        long version;
+        Instant updatedAt;
+    }
+}
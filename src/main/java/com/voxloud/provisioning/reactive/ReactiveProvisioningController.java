@@ -0,0 +1,89 @@
+package com.voxloud.provisioning.reactive;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.service.ContentCoding;
+import com.voxloud.provisioning.service.RenderedConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * WebFlux variant of {@link com.voxloud.provisioning.controller.ProvisioningController}, serving the
+ * same endpoint with the same content negotiation and conditional request handling on the reactive
+ * runtime.
+ */
+@RestController
+@RequestMapping("/api/v1")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveProvisioningController {
+    private static final byte[] DEVICE_NOT_FOUND = "Device not found!".getBytes(StandardCharsets.UTF_8);
+
+    private final ReactiveProvisioningService reactiveProvisioningService;
+
+    @GetMapping("/provisioning/{macAddress}")
+    public Mono<ResponseEntity<byte[]>> provisionDevice(@PathVariable("macAddress") String macAddressText,
+                                                        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING,
+                                                                required = false) String acceptEncoding,
+                                                        ServerWebExchange exchange) {
+        MacAddress macAddress = MacAddress.tryParse(macAddressText);
+        if (macAddress == null) {
+            return Mono.just(deviceNotFound());
+        }
+        ContentCoding coding = ContentCoding.negotiate(acceptEncoding);
+        exchange.getResponse().getHeaders().set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!isConditional(exchange)) {
+            return reactiveProvisioningService.getRenderedConfig(macAddress)
+                    .map(renderedConfig -> toResponse(renderedConfig, coding))
+                    .switchIfEmpty(Mono.fromSupplier(ReactiveProvisioningController::deviceNotFound));
+        }
+        return reactiveProvisioningService.getConfigVersion(macAddress)
+                .flatMap(version -> {
+                    Instant lastModified = version.getLastModified() > 0
+                            ? Instant.ofEpochMilli(version.getLastModified()) : Instant.MIN;
+                    if (exchange.checkNotModified(coding.etag(version.getEtag()), lastModified)) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).<byte[]>build());
+                    }
+                    return reactiveProvisioningService.getRenderedConfig(macAddress)
+                            .map(renderedConfig -> toResponse(renderedConfig, coding));
+                })
+                .switchIfEmpty(Mono.fromSupplier(ReactiveProvisioningController::deviceNotFound));
+    }
+
+    private static boolean isConditional(ServerWebExchange exchange) {
+        HttpHeaders headers = exchange.getRequest().getHeaders();
+        return headers.containsKey(HttpHeaders.IF_NONE_MATCH) || headers.containsKey(HttpHeaders.IF_MODIFIED_SINCE);
+    }
+
+    private static ResponseEntity<byte[]> deviceNotFound() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(DEVICE_NOT_FOUND);
+    }
+
+    private static ResponseEntity<byte[]> toResponse(RenderedConfig renderedConfig, ContentCoding coding) {
+        byte[] body = renderedConfig.getContent(coding);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, renderedConfig.getContentType())
+                .contentLength(body.length)
+                .eTag(coding.etag(renderedConfig.getVersion().getEtag()))
+                .lastModified(renderedConfig.getVersion().getLastModified());
+        if (renderedConfig.isEncoded(coding)) {
+            ok.header(HttpHeaders.CONTENT_ENCODING, coding.getToken());
+        }
+        return ok.body(body);
+    }
+}
@@ -0,0 +1,22 @@
+package com.voxloud.provisioning.reactive;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.service.ConfigVersion;
+import com.voxloud.provisioning.service.RenderedConfig;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Non-blocking counterpart of {@link com.voxloud.provisioning.service.ProvisioningService}. All
+ * methods complete empty for unknown devices and signal {@link java.util.concurrent.TimeoutException}
+ * when the request timeout elapses.
+ */
+public interface ReactiveProvisioningService {
+
+    Mono<ByteBuffer> getProvisioningFile(MacAddress macAddress);
+
+    Mono<RenderedConfig> getRenderedConfig(MacAddress macAddress);
+
+    Mono<ConfigVersion> getConfigVersion(MacAddress macAddress);
+}
@@ -0,0 +1,142 @@
+package com.voxloud.provisioning.reactive;
+
+import com.voxloud.provisioning.cache.DeviceMembershipFilter;
+import com.voxloud.provisioning.cache.DeviceMembershipFilter.Membership;
+import com.voxloud.provisioning.cache.RenderedConfigCache;
+import com.voxloud.provisioning.cache.RenderedConfigSnapshot;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.metrics.ProvisioningMetrics;
+import com.voxloud.provisioning.service.ConfigVersion;
+import com.voxloud.provisioning.service.DeviceConfigRenderer;
+import com.voxloud.provisioning.service.RenderedConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+/**
+ * Reactive provisioning pipeline sharing the rendered file cache, the on-disk snapshot and the
+ * strategies with the servlet runtime. Rendering is CPU-only and runs on the event loop; the only
+ * I/O is the R2DBC lookup, whose concurrency is bounded by the connection pool.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveProvisioningServiceImpl implements ReactiveProvisioningService {
+    private final ReactiveDeviceRepository reactiveDeviceRepository;
+    private final DeviceConfigRenderer deviceConfigRenderer;
+    private final RenderedConfigCache renderedConfigCache;
+    private final RenderedConfigSnapshot renderedConfigSnapshot;
+    private final DeviceMembershipFilter deviceMembershipFilter;
+    private final ProvisioningMetrics metrics;
+    private final Duration requestTimeout;
+
+    public ReactiveProvisioningServiceImpl(ReactiveDeviceRepository reactiveDeviceRepository,
+                                           DeviceConfigRenderer deviceConfigRenderer,
+                                           RenderedConfigCache renderedConfigCache,
+                                           RenderedConfigSnapshot renderedConfigSnapshot,
+                                           DeviceMembershipFilter deviceMembershipFilter,
+                                           ProvisioningMetrics metrics,
+                                           @Value("${provisioning.reactive.request-timeout}") Duration requestTimeout) {
+        this.reactiveDeviceRepository = reactiveDeviceRepository;
+        this.deviceConfigRenderer = deviceConfigRenderer;
+        this.renderedConfigCache = renderedConfigCache;
+        this.renderedConfigSnapshot = renderedConfigSnapshot;
+        this.deviceMembershipFilter = deviceMembershipFilter;
+        this.metrics = metrics;
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public Mono<ByteBuffer> getProvisioningFile(MacAddress macAddress) {
+        return getRenderedConfig(macAddress)
+                .map(config -> ByteBuffer.wrap(config.getContent()).asReadOnlyBuffer());
+    }
+
+    @Override
+    public Mono<RenderedConfig> getRenderedConfig(MacAddress macAddress) {
+        return Mono.defer(() -> {
+            RenderedConfig cached = renderedConfigCache.get(macAddress);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            Membership membership = checkMembership(macAddress);
+            if (membership == Membership.ABSENT) {
+                return Mono.empty();
+            }
+            long stamp = renderedConfigCache.stamp();
+            return restore(macAddress)
+                    .switchIfEmpty(Mono.defer(() -> loadAndRender(macAddress, membership)))
+                    .doOnNext(rendered -> renderedConfigCache.put(macAddress, rendered, stamp));
+        }).timeout(requestTimeout);
+    }
+
+    private Mono<RenderedConfig> loadAndRender(MacAddress macAddress, Membership membership) {
+        long missingStamp = deviceMembershipFilter.stamp();
+        long start = System.nanoTime();
+        return reactiveDeviceRepository.findById(macAddress)
+                .doOnSuccess(device -> {
+                    metrics.recordDeviceLookup(start, device != null);
+                    if (device == null) {
+                        deviceNotFound(macAddress, membership, missingStamp);
+                    }
+                })
+                .map(deviceConfigRenderer::render);
+    }
+
+    /**
+     * The file held by the snapshot if it is still current, checked against the version columns
+     * alone; empty sends the caller through the full lookup.
+     */
+    private Mono<RenderedConfig> restore(MacAddress macAddress) {
+        if (!renderedConfigSnapshot.contains(macAddress)) {
+            return Mono.empty();
+        }
+        long start = System.nanoTime();
+        return reactiveDeviceRepository.findVersionById(macAddress)
+                .doOnSuccess(version -> metrics.recordVersionLookup(start, version != null))
+                .mapNotNull(version -> renderedConfigSnapshot.restore(macAddress, version.getModel(),
+                        deviceConfigRenderer.version(version.getModel(), version.getGroupName(),
+                                version.getVersion(), version.getUpdatedAt())));
+    }
+
+    @Override
+    public Mono<ConfigVersion> getConfigVersion(MacAddress macAddress) {
+        return Mono.defer(() -> {
+            RenderedConfig cached = renderedConfigCache.get(macAddress);
+            if (cached != null) {
+                return Mono.just(cached.getVersion());
+            }
+            Membership membership = checkMembership(macAddress);
+            if (membership == Membership.ABSENT) {
+                return Mono.empty();
+            }
+            long missingStamp = deviceMembershipFilter.stamp();
+            long start = System.nanoTime();
+            return reactiveDeviceRepository.findVersionById(macAddress)
+                    .doOnSuccess(version -> {
+                        metrics.recordVersionLookup(start, version != null);
+                        if (version == null) {
+                            deviceNotFound(macAddress, membership, missingStamp);
+                        }
+                    })
+                    .map(version -> deviceConfigRenderer.version(version.getModel(), version.getGroupName(),
+                            version.getVersion(), version.getUpdatedAt()));
+        }).timeout(requestTimeout);
+    }
+
+    private Membership checkMembership(MacAddress macAddress) {
+        Membership membership = deviceMembershipFilter.check(macAddress);
+        if (membership == Membership.ABSENT) {
+            metrics.deviceNotFound();
+        }
+        return membership;
+    }
+
+    private void deviceNotFound(MacAddress macAddress, Membership membership, long missingStamp) {
+        deviceMembershipFilter.recordMissing(macAddress, membership, missingStamp);
+        metrics.deviceNotFound();
+    }
+}
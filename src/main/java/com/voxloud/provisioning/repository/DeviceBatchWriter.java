@@ -0,0 +1,73 @@
+package com.voxloud.provisioning.repository;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.event.DeviceChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Writes many devices with one JDBC batch of {@code MERGE} statements per call, bypassing the
+ * persistence context: no entity is loaded or managed, and existing rows are updated in place with
+ * their version incremented. Callers are responsible for validating and compiling the devices, which
+ * the JPA entity listener would otherwise do.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeviceBatchWriter {
+    private static final String UPSERT = "MERGE INTO device d USING (VALUES (CAST(? AS BIGINT), "
+            + "CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARBINARY(1024)), CAST(? AS VARCHAR(255)), "
+            + "CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP WITH TIME ZONE))) "
+            + "s (mac_address, model, override_fragment, override_compiled, username, password, group_name, updated_at) "
+            + "ON d.mac_address = s.mac_address "
+            + "WHEN MATCHED THEN UPDATE SET model = s.model, override_fragment = s.override_fragment, "
+            + "override_compiled = s.override_compiled, username = s.username, password = s.password, "
+            + "group_name = s.group_name, version = d.version + 1, updated_at = s.updated_at "
+            + "WHEN NOT MATCHED THEN INSERT (mac_address, model, override_fragment, override_compiled, username, "
+            + "password, group_name, version, updated_at) VALUES (s.mac_address, s.model, s.override_fragment, "
+            + "s.override_compiled, s.username, s.password, s.group_name, 0, s.updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Inserts or replaces {@code devices} in one transaction. A {@link DeviceChangedEvent} is
+     * published for each of them, delivered to transactional listeners once the batch commits.
+     */
+    @Transactional
+    public void upsert(List<Device> devices) {
+        OffsetDateTime updatedAt = Instant.now().atOffset(ZoneOffset.UTC);
+        jdbcTemplate.batchUpdate(UPSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Device device = devices.get(i);
+                statement.setLong(1, device.getMacAddress().toLong());
+                statement.setString(2, device.getModel().name());
+                statement.setString(3, device.getOverrideFragment());
+                statement.setBytes(4, device.getOverrideCompiled());
+                statement.setString(5, device.getUsername());
+                statement.setString(6, device.getPassword());
+                statement.setString(7, device.getGroupName());
+                statement.setObject(8, updatedAt);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return devices.size();
+            }
+        });
+        for (Device device : devices) {
+            eventPublisher.publishEvent(new DeviceChangedEvent(device.getMacAddress()));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.voxloud.provisioning.repository;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+
+import java.util.Optional;
+
+/**
+ * Read access to the device inventory on the provisioning request path. Devices returned are
+ * detached copies; changes to them are not persisted.
+ */
+public interface DeviceLookup {
+    Optional<Device> findDevice(MacAddress macAddress);
+
+    Optional<DeviceVersion> findVersion(MacAddress macAddress);
+}
@@ -1,9 +1,77 @@
 package com.voxloud.provisioning.repository;
 
 import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface DeviceRepository extends JpaRepository<Device, String> {
+public interface DeviceRepository extends JpaRepository<Device, MacAddress> {
+
+    Optional<DeviceVersion> findVersionByMacAddress(MacAddress macAddress);
+
+    /**
+     * Keyset page of devices ordered by MAC address, starting right after {@code after}, or at the
+     * first device when it is {@code null}. Only the page size of {@code limit} is used; no count
+     * query is issued.
+     */
+    default List<Device> findPageAfter(MacAddress after, Device.DeviceModel model, Pageable limit) {
+        return after != null ? findPageStrictlyAfter(after, model, limit) : findFirstPage(model, limit);
+    }
+
+    @Query("select d from Device d where d.macAddress > :after and (:model is null or d.model = :model) "
+            + "order by d.macAddress")
+    List<Device> findPageStrictlyAfter(@Param("after") MacAddress after, @Param("model") Device.DeviceModel model,
+                                       Pageable limit);
+
+    @Query("select d from Device d where :model is null or d.model = :model order by d.macAddress")
+    List<Device> findFirstPage(@Param("model") Device.DeviceModel model, Pageable limit);
+
+    /**
+     * Devices written at or after {@code since}, used to follow changes made outside this
+     * application instance.
+     */
+    List<Device> findByUpdatedAtGreaterThanEqual(Instant since);
+
+    /**
+     * Keyset page of MAC addresses from {@code from} onwards, in order, without loading the rows.
+     */
+    @Query("select d.macAddress from Device d where d.macAddress >= :from order by d.macAddress")
+    List<MacAddress> findMacAddressesFrom(@Param("from") MacAddress from, Pageable limit);
+
+    /**
+     * MAC addresses of devices written at or after {@code since}.
+     */
+    @Query("select d.macAddress from Device d where d.updatedAt >= :since")
+    List<MacAddress> findMacAddressesUpdatedSince(@Param("since") Instant since);
+
+    /**
+     * Keyset page of devices from {@code from} onwards whose override fragment has not been
+     * compiled yet, i.e. rows written before fragments were validated or by another application.
+     */
+    @Query("select d from Device d where d.macAddress >= :from and d.overrideFragment is not null "
+            + "and d.overrideCompiled is null order by d.macAddress")
+    List<Device> findUncompiledFrom(@Param("from") MacAddress from, Pageable limit);
+
+    /**
+     * Stores the compiled form of a device's override fragment without touching its version or
+     * timestamp, since the rendered configuration does not change. Has no effect if the fragment
+     * was edited in the meantime.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Device d set d.overrideCompiled = :compiled "
+            + "where d.macAddress = :macAddress and d.overrideFragment = :overrideFragment")
+    int storeCompiledOverrides(@Param("macAddress") MacAddress macAddress,
+                               @Param("overrideFragment") String overrideFragment,
+                               @Param("compiled") byte[] compiled);
 }
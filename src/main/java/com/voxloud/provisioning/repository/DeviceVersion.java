@@ -0,0 +1,19 @@
+package com.voxloud.provisioning.repository;
+
+import com.voxloud.provisioning.entity.Device;
+
+import java.time.Instant;
+
+/**
+ * Closed projection over the version columns of a device, used to answer conditional requests
+ * without loading credentials or the override fragment.
+ */
+public interface DeviceVersion {
+    Device.DeviceModel getModel();
+
+    String getGroupName();
+
+    long getVersion();
+
+    Instant getUpdatedAt();
+}
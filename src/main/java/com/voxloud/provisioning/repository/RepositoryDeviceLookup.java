@@ -0,0 +1,29 @@
+package com.voxloud.provisioning.repository;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Default {@link DeviceLookup} querying the database on every call.
+ */
+@Component
+@ConditionalOnProperty(name = "provisioning.index.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RepositoryDeviceLookup implements DeviceLookup {
+    private final DeviceRepository deviceRepository;
+
+    @Override
+    public Optional<Device> findDevice(MacAddress macAddress) {
+        return deviceRepository.findById(macAddress);
+    }
+
+    @Override
+    public Optional<DeviceVersion> findVersion(MacAddress macAddress) {
+        return deviceRepository.findVersionByMacAddress(macAddress);
+    }
+}
@@ -0,0 +1,53 @@
+package com.voxloud.provisioning.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Produces the gzip variant of a rendered provisioning file once, when it is rendered, so that it
+ * can be cached and served to every phone accepting gzip without compressing per request.
+ */
+@Component
+public class ConfigCompressor {
+    private final boolean enabled;
+    private final int level;
+
+    public ConfigCompressor(@Value("${provisioning.compression.enabled}") boolean enabled,
+                            @Value("${provisioning.compression.level}") int level) {
+        this.enabled = enabled;
+        this.level = level;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The gzip encoding of {@code content}, or {@code null} when compression is disabled or would not
+     * make the file smaller.
+     */
+    public byte[] gzip(byte[] content) {
+        if (!enabled) {
+            return null;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 2 + 32);
+        try (GZIPOutputStream gzip = new LeveledGzipOutputStream(buffer, level)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.size() < content.length ? buffer.toByteArray() : null;
+    }
+
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+        LeveledGzipOutputStream(ByteArrayOutputStream out, int level) throws IOException {
+            super(out);
+            def.setLevel(level);
+        }
+    }
+}
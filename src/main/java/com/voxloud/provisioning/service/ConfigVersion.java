@@ -0,0 +1,13 @@
+package com.voxloud.provisioning.service;
+
+import lombok.Value;
+
+/**
+ * Validators of a provisioning file: a strong entity tag and the last modification time of the
+ * device row or its settings in epoch milliseconds.
+ */
+@Value
+public class ConfigVersion {
+    String etag;
+    long lastModified;
+}
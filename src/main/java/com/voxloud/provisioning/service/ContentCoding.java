@@ -0,0 +1,87 @@
+package com.voxloud.provisioning.service;
+
+import java.util.Locale;
+
+/**
+ * Content codings a provisioning file can be served in.
+ * <p>
+ * Each coding is a separate representation with its own entity tag, derived from the tag of the
+ * file, so that caches and conditional requests never confuse the compressed and the identity
+ * bytes. The tag only depends on the negotiated coding: a file too small to gain from compression
+ * is sent uncompressed, under the tag of the coding the client asked for.
+ */
+public enum ContentCoding {
+    IDENTITY(null),
+    GZIP("gzip");
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * The {@code Content-Encoding} value, {@code null} for the identity coding.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * The entity tag of this coding's representation of a file tagged {@code etag}.
+     */
+    public String etag(String etag) {
+        if (token == null) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + token + "\"";
+    }
+
+    /**
+     * Picks the coding for an {@code Accept-Encoding} header, possibly a comma-joined list of
+     * several. Gzip is chosen when it is acceptable, explicitly or through {@code *}, unless identity
+     * is explicitly ranked above it; everything else, including a missing header, gets identity.
+     */
+    public static ContentCoding negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return IDENTITY;
+        }
+        double gzip = -1;
+        double identity = -1;
+        double any = -1;
+        for (String element : acceptEncoding.split(",")) {
+            int parameters = element.indexOf(';');
+            String coding = (parameters < 0 ? element : element.substring(0, parameters)).trim()
+                    .toLowerCase(Locale.ROOT);
+            double quality = parameters < 0 ? 1 : quality(element.substring(parameters + 1));
+            switch (coding) {
+                case "gzip", "x-gzip" -> gzip = Math.max(gzip, quality);
+                case "identity" -> identity = Math.max(identity, quality);
+                case "*" -> any = Math.max(any, quality);
+                default -> {
+                }
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (identity < 0) {
+            identity = any;
+        }
+        return gzip > 0 && gzip >= identity ? GZIP : IDENTITY;
+    }
+
+    private static double quality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0 && parameter.substring(0, separator).trim().equalsIgnoreCase("q")) {
+                try {
+                    return Double.parseDouble(parameter.substring(separator + 1).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,97 @@
+package com.voxloud.provisioning.service;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.exception.UnsupportedDeviceModelException;
+import com.voxloud.provisioning.metrics.ProvisioningMetrics;
+import com.voxloud.provisioning.settings.LayeredSettings;
+import com.voxloud.provisioning.strategy.ProvisioningStrategy;
+import com.voxloud.provisioning.strategy.ProvisioningStrategyFactory;
+import com.voxloud.provisioning.template.ProvisioningSettings;
+import com.voxloud.provisioning.template.RenderBuffer;
+import com.voxloud.provisioning.template.RenderBufferPool;
+import com.voxloud.provisioning.util.OverrideFormat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+@Component
+@RequiredArgsConstructor
+public class DeviceConfigRenderer {
+    private static final int BUFFER_POOL_SIZE = 256;
+    private static final int INITIAL_BUFFER_SIZE = 512;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private final ProvisioningStrategyFactory provisioningStrategyFactory;
+    private final ProvisioningMetrics metrics;
+    private final LayeredSettings layeredSettings;
+    private final ConfigCompressor configCompressor;
+
+    private final RenderBufferPool buffers =
+            new RenderBufferPool(BUFFER_POOL_SIZE, INITIAL_BUFFER_SIZE, MAX_RETAINED_BUFFER_SIZE);
+
+    public RenderedConfig render(Device device) {
+        ProvisioningStrategy strategy = strategy(device.getModel());
+        RenderBuffer buffer = buffers.acquire();
+        try {
+            ProvisioningSettings settings = layeredSettings.resolve(device.getModel(), device.getGroupName());
+            long start = System.nanoTime();
+            strategy.render(device, settings, buffer);
+            metrics.recordRender(device.getModel(), OverrideFormat.of(device.getOverrideFragment()), start);
+            byte[] content = buffer.toByteArray();
+            return new RenderedConfig(device.getModel(), strategy.getContentType(), content,
+                    configCompressor.gzip(content),
+                    version(strategy, settings, device.getVersion(), device.getUpdatedAt()));
+        } finally {
+            buffers.release(buffer);
+        }
+    }
+
+    /**
+     * Rebuilds a rendered file from bytes kept elsewhere, such as the on-disk snapshot, once the
+     * caller has checked that they were rendered under {@code version}. The gzip variant is dropped
+     * while compression is disabled.
+     */
+    public RenderedConfig restore(Device.DeviceModel model, byte[] content, byte[] gzipContent,
+                                  ConfigVersion version) {
+        return new RenderedConfig(model, strategy(model).getContentType(), content,
+                configCompressor.isEnabled() ? gzipContent : null, version);
+    }
+
+    /**
+     * Computes the validators of a device's provisioning file without rendering it. The rendered
+     * content is a pure function of the device row, the settings layers of its model and group and
+     * the model's template, so the row version and modification time together with fingerprints of
+     * the settings and the template identify it. The last modification time is the later of the
+     * row's and the settings', so that clients validating with {@code If-Modified-Since} alone also see
+     * changed settings. The templates ship with the build and only change the entity tag.
+     */
+    public ConfigVersion version(Device.DeviceModel model, String group, long deviceVersion, Instant updatedAt) {
+        ProvisioningStrategy strategy = strategy(model);
+        return version(strategy, layeredSettings.resolve(model, group), deviceVersion, updatedAt);
+    }
+
+    private ConfigVersion version(ProvisioningStrategy strategy, ProvisioningSettings settings,
+                                  long deviceVersion, Instant updatedAt) {
+        long rowModified = updatedAt != null ? updatedAt.toEpochMilli() : -1;
+        long formatFingerprint = strategy.fingerprint();
+        long hash = mix(mix(settings.fingerprint()) ^ formatFingerprint ^ mix(deviceVersion) ^ mix(~rowModified));
+        long lastModified = Math.max(rowModified, layeredSettings.lastModified().toEpochMilli());
+        return new ConfigVersion("\"" + Long.toHexString(hash) + "\"", lastModified);
+    }
+
+    private ProvisioningStrategy strategy(Device.DeviceModel model) {
+        try {
+            return provisioningStrategyFactory.getStrategy(model);
+        } catch (UnsupportedDeviceModelException e) {
+            metrics.unsupportedModel();
+            throw e;
+        }
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,277 @@
+package com.voxloud.provisioning.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.exception.InvalidDeviceException;
+import com.voxloud.provisioning.exception.OverrideFragmentException;
+import com.voxloud.provisioning.exception.UnsupportedDeviceModelException;
+import com.voxloud.provisioning.repository.DeviceBatchWriter;
+import com.voxloud.provisioning.util.CsvReader;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+
+/**
+ * Imports devices in bulk from CSV or NDJSON, streaming both the input and the report.
+ * <p>
+ * Rows are validated and their override fragments compiled one by one; valid rows are written in
+ * chunks of {@code provisioning.import.chunk-size}, each chunk as one JDBC batch in its own
+ * transaction, so a failed chunk does not undo the chunks before it. The report is NDJSON: one
+ * {@code {"line", "macAddress", "error"}} record per rejected row, a {@code {"processed",
+ * "imported", "failed"}} progress record after each chunk, and a final one with {@code "done":
+ * true}.
+ * <p>
+ * CSV input needs a header naming its columns, in any order: {@code macAddress}, {@code model},
+ * {@code username}, {@code password}, {@code overrideFragment}, {@code groupName} (snake case is
+ * accepted too). NDJSON lines are objects with the same fields.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeviceImportService {
+    private final DeviceWriteService deviceWriteService;
+    private final DeviceBatchWriter deviceBatchWriter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${provisioning.import.chunk-size}")
+    private int chunkSize;
+
+    public ImportSummary importDevices(ImportFormat format, InputStream in, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        try (Import run = new Import(generator)) {
+            try {
+                RowReader rows = format == ImportFormat.CSV ? new CsvRowReader(reader) : new NdjsonRowReader(reader);
+                Row row;
+                while ((row = rows.next()) != null) {
+                    run.add(row);
+                }
+            } catch (IllegalArgumentException e) {
+                run.reject(0, null, e.getMessage());
+            }
+            run.flush();
+            ImportSummary summary = run.finish();
+            log.info("Imported {} of {} devices in {} ms, {} rejected", summary.getImported(), summary.getProcessed(),
+                    (System.nanoTime() - start) / 1_000_000, summary.getFailed());
+            return summary;
+        }
+    }
+
+    /**
+     * State of one import: the pending chunk and the counters, written to the report as they change.
+     */
+    @RequiredArgsConstructor
+    private final class Import implements AutoCloseable {
+        private final JsonGenerator report;
+        private final List<Device> chunk = new ArrayList<>();
+        private final List<Integer> chunkLines = new ArrayList<>();
+        private long processed;
+        private long imported;
+        private long failed;
+
+        void add(Row row) throws IOException {
+            processed++;
+            if (row.getError() != null) {
+                reject(row.getLine(), row.getMacAddress(), row.getError());
+                return;
+            }
+            DeviceInput input = row.getInput();
+            MacAddress macAddress = MacAddress.tryParse(input.getMacAddress() != null ? input.getMacAddress() : "");
+            if (macAddress == null) {
+                reject(row.getLine(), input.getMacAddress(), "Invalid MAC address");
+                return;
+            }
+            try {
+                chunk.add(deviceWriteService.compile(macAddress, input));
+                chunkLines.add(row.getLine());
+            } catch (InvalidDeviceException | OverrideFragmentException | UnsupportedDeviceModelException e) {
+                reject(row.getLine(), input.getMacAddress(), e.getMessage());
+                return;
+            }
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            try {
+                deviceBatchWriter.upsert(chunk);
+                imported += chunk.size();
+            } catch (DataAccessException e) {
+                String message = "Write failed: " + e.getMostSpecificCause().getMessage();
+                for (int i = 0; i < chunk.size(); i++) {
+                    reject(chunkLines.get(i), chunk.get(i).getMacAddress().toString(), message);
+                }
+            }
+            chunk.clear();
+            chunkLines.clear();
+            writeProgress(false);
+            report.flush();
+        }
+
+        ImportSummary finish() throws IOException {
+            writeProgress(true);
+            return new ImportSummary(processed, imported, failed);
+        }
+
+        void reject(int line, String macAddress, String message) throws IOException {
+            failed++;
+            report.writeStartObject();
+            if (line > 0) {
+                report.writeNumberField("line", line);
+            }
+            if (macAddress != null) {
+                report.writeStringField("macAddress", macAddress);
+            }
+            report.writeStringField("error", message);
+            report.writeEndObject();
+            report.writeRaw('\n');
+        }
+
+        private void writeProgress(boolean done) throws IOException {
+            report.writeStartObject();
+            report.writeNumberField("processed", processed);
+            report.writeNumberField("imported", imported);
+            report.writeNumberField("failed", failed);
+            if (done) {
+                report.writeBooleanField("done", true);
+            }
+            report.writeEndObject();
+            report.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            report.close();
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static final class Row {
+        private final int line;
+        private final DeviceInput input;
+        private final String macAddress;
+        private final String error;
+
+        static Row of(int line, DeviceInput input) {
+            return new Row(line, input, input.getMacAddress(), null);
+        }
+
+        static Row invalid(int line, String macAddress, String error) {
+            return new Row(line, null, macAddress, error);
+        }
+    }
+
+    private interface RowReader {
+        /**
+         * The next row, or {@code null} at the end of the input.
+         *
+         * @throws IllegalArgumentException if the input cannot be read any further
+         */
+        Row next() throws IOException;
+    }
+
+    private static final class CsvRowReader implements RowReader {
+        private final CsvReader csv;
+        private final List<BiConsumer<DeviceInput, String>> columns = new ArrayList<>();
+
+        CsvRowReader(BufferedReader reader) throws IOException {
+            csv = new CsvReader(reader);
+            List<String> header = csv.next();
+            if (header == null) {
+                return;
+            }
+            List<String> names = new ArrayList<>();
+            for (String name : header) {
+                names.add(name == null ? "" : name.trim().replace("_", "").toLowerCase(Locale.ROOT));
+                columns.add(column(name, names.get(names.size() - 1)));
+            }
+            if (!names.contains("macaddress") || !names.contains("model")) {
+                throw new IllegalArgumentException("CSV header must name the macAddress and model columns");
+            }
+        }
+
+        @Override
+        public Row next() throws IOException {
+            List<String> fields = columns.isEmpty() ? null : csv.next();
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() != columns.size()) {
+                return Row.invalid(csv.getLine(), null,
+                        "Expected " + columns.size() + " fields, found " + fields.size());
+            }
+            DeviceInput input = new DeviceInput();
+            for (int i = 0; i < fields.size(); i++) {
+                columns.get(i).accept(input, fields.get(i));
+            }
+            return Row.of(csv.getLine(), input);
+        }
+
+        private static BiConsumer<DeviceInput, String> column(String name, String normalizedName) {
+            switch (normalizedName) {
+                case "macaddress":
+                    return DeviceInput::setMacAddress;
+                case "model":
+                    return DeviceInput::setModel;
+                case "username":
+                    return DeviceInput::setUsername;
+                case "password":
+                    return DeviceInput::setPassword;
+                case "overridefragment":
+                    return DeviceInput::setOverrideFragment;
+                case "groupname":
+                    return DeviceInput::setGroupName;
+                default:
+                    throw new IllegalArgumentException("Unknown CSV column \"" + name + "\"");
+            }
+        }
+    }
+
+    @RequiredArgsConstructor
+    private final class NdjsonRowReader implements RowReader {
+        private final BufferedReader reader;
+        private int line;
+
+        @Override
+        public Row next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                return Row.of(line, objectMapper.readValue(text, DeviceInput.class));
+            } catch (JsonProcessingException e) {
+                return Row.invalid(line, null, "Invalid JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
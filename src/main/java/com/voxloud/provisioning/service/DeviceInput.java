@@ -0,0 +1,17 @@
+package com.voxloud.provisioning.service;
+
+import lombok.Data;
+
+/**
+ * A device as submitted to the write API, one CSV row or NDJSON line of an import. The MAC address
+ * may be in any common notation; it is ignored when the address is part of the request path.
+ */
+@Data
+public class DeviceInput {
+    private String macAddress;
+    private String model;
+    private String username;
+    private String password;
+    private String overrideFragment;
+    private String groupName;
+}
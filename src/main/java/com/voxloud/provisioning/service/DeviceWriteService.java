@@ -0,0 +1,92 @@
+package com.voxloud.provisioning.service;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.exception.DeviceNotFoundException;
+import com.voxloud.provisioning.exception.InvalidDeviceException;
+import com.voxloud.provisioning.repository.DeviceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+
+/**
+ * Creates, replaces and deletes single devices. Writes go through JPA, so the entity listener
+ * validates the override fragment and publishes the change.
+ */
+@Service
+@RequiredArgsConstructor
+public class DeviceWriteService {
+    private final DeviceRepository deviceRepository;
+    private final OverrideFragmentCompiler overrideFragmentCompiler;
+
+    /**
+     * Stores {@code input} as the device with {@code macAddress}, replacing all its fields if it
+     * exists.
+     *
+     * @return whether the device was created
+     */
+    @Transactional
+    public boolean save(MacAddress macAddress, DeviceInput input) {
+        Device.DeviceModel model = model(input.getModel());
+        Device device = deviceRepository.findById(macAddress).orElse(null);
+        boolean created = device == null;
+        if (created) {
+            device = new Device();
+            device.setMacAddress(macAddress);
+        }
+        apply(device, model, input);
+        // Compiled here as well as by the entity listener, so that an invalid fragment fails with
+        // its own exception rather than when the transaction commits.
+        device.setOverrideCompiled(overrideFragmentCompiler.compile(device));
+        deviceRepository.save(device);
+        return created;
+    }
+
+    @Transactional
+    public void delete(MacAddress macAddress) {
+        Device device = deviceRepository.findById(macAddress)
+                .orElseThrow(() -> new DeviceNotFoundException("Device not found!"));
+        deviceRepository.delete(device);
+    }
+
+    /**
+     * A validated, detached device built from {@code input} with its override fragment compiled,
+     * ready to be written without going through JPA.
+     *
+     * @throws InvalidDeviceException if the model is missing or unknown
+     * @throws com.voxloud.provisioning.exception.OverrideFragmentException if the override fragment
+     *         is invalid
+     */
+    public Device compile(MacAddress macAddress, DeviceInput input) {
+        Device device = new Device();
+        device.setMacAddress(macAddress);
+        apply(device, model(input.getModel()), input);
+        device.setOverrideCompiled(overrideFragmentCompiler.compile(device));
+        return device;
+    }
+
+    private static void apply(Device device, Device.DeviceModel model, DeviceInput input) {
+        device.setModel(model);
+        device.setUsername(emptyToNull(input.getUsername()));
+        device.setPassword(emptyToNull(input.getPassword()));
+        device.setOverrideFragment(emptyToNull(input.getOverrideFragment()));
+        device.setGroupName(emptyToNull(input.getGroupName()));
+    }
+
+    private static Device.DeviceModel model(String model) {
+        if (model == null || model.isBlank()) {
+            throw new InvalidDeviceException("Missing model");
+        }
+        try {
+            return Device.DeviceModel.valueOf(model.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDeviceException("Unknown model: " + model);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,13 @@
+package com.voxloud.provisioning.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    NDJSON("application/x-ndjson"),
+    ZIP("application/zip");
+
+    private final String contentType;
+}
@@ -0,0 +1,13 @@
+package com.voxloud.provisioning.service;
+
+import lombok.Value;
+
+/**
+ * Outcome of a bulk import: rows read, rows written and rows rejected.
+ */
+@Value
+public class ImportSummary {
+    long processed;
+    long imported;
+    long failed;
+}
@@ -0,0 +1,62 @@
+package com.voxloud.provisioning.service;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.exception.OverrideFragmentException;
+import com.voxloud.provisioning.repository.DeviceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Compiles the override fragments of rows that were written without going through
+ * {@link OverrideFragmentCompiler}, such as seed data and rows stored before fragments were
+ * validated. Fragments failing validation are logged and left uncompiled; they are still parsed
+ * from their text when served, and have to be corrected before the device can be saved again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OverrideBackfill {
+    private static final int PAGE_SIZE = 500;
+
+    private final DeviceRepository deviceRepository;
+    private final OverrideFragmentCompiler overrideFragmentCompiler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        int compiled = 0;
+        int invalid = 0;
+        MacAddress from = MacAddress.of(0);
+        List<Device> page;
+        do {
+            page = deviceRepository.findUncompiledFrom(from, PageRequest.ofSize(PAGE_SIZE));
+            for (Device device : page) {
+                try {
+                    byte[] overrides = overrideFragmentCompiler.compile(device);
+                    compiled += deviceRepository.storeCompiledOverrides(device.getMacAddress(),
+                            device.getOverrideFragment(), overrides);
+                } catch (OverrideFragmentException e) {
+                    invalid++;
+                    log.warn("Device {} has an invalid override fragment: {}", device.getMacAddress(), e.getMessage());
+                }
+            }
+            if (page.isEmpty()) {
+                break;
+            }
+            long last = page.get(page.size() - 1).getMacAddress().toLong();
+            if (last == MacAddress.MAX_VALUE) {
+                break;
+            }
+            from = MacAddress.of(last + 1);
+        } while (page.size() == PAGE_SIZE);
+        if (compiled > 0 || invalid > 0) {
+            log.info("Compiled override fragments of {} devices, {} invalid", compiled, invalid);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.voxloud.provisioning.service;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.exception.OverrideFragmentException;
+import com.voxloud.provisioning.strategy.ProvisioningStrategyFactory;
+import com.voxloud.provisioning.util.CompiledOverrides;
+import com.voxloud.provisioning.util.OverrideFragmentParser;
+import com.voxloud.provisioning.util.OverrideSchema;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Validates a device's override fragment against the {@link OverrideSchema} of its model and
+ * turns it into its {@link CompiledOverrides compiled} form, so that the serving path never parses
+ * free-form text and never sees a fragment that failed validation.
+ */
+@Component
+@RequiredArgsConstructor
+public class OverrideFragmentCompiler {
+    private final ProvisioningStrategyFactory provisioningStrategyFactory;
+    private final OverrideFragmentParser overrideFragmentParser;
+
+    /**
+     * The compiled overrides of {@code device}, or {@code null} if it has no override fragment.
+     *
+     * @throws OverrideFragmentException if the fragment is malformed or violates the schema
+     */
+    public byte[] compile(Device device) {
+        String overrideFragment = device.getOverrideFragment();
+        if (overrideFragment == null || overrideFragment.isEmpty()) {
+            return null;
+        }
+        Device.DeviceModel model = device.getModel();
+        Map<String, String> values = overrideFragmentParser.parse(model, overrideFragment);
+        OverrideSchema.validate(model, provisioningStrategyFactory.getStrategy(model).getOverrideKeys(), values);
+        return CompiledOverrides.encode(values);
+    }
+}
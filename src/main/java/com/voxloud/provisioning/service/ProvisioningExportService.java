@@ -0,0 +1,195 @@
+package com.voxloud.provisioning.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voxloud.provisioning.cache.RenderedConfigCache;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.repository.DeviceRepository;
+import com.voxloud.provisioning.strategy.ProvisioningStrategyFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams rendered provisioning files for many devices at once.
+ * <p>
+ * Devices are read in keyset pages of {@code provisioning.export.page-size} rows, each page in its
+ * own short-lived persistence context, and written out before the next page is fetched, so memory
+ * use does not depend on the inventory size. Files already in the rendered cache are reused; the
+ * others are rendered without being cached to keep an export from evicting the hot set.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProvisioningExportService {
+    private final DeviceRepository deviceRepository;
+    private final DeviceConfigRenderer deviceConfigRenderer;
+    private final RenderedConfigCache renderedConfigCache;
+    private final ProvisioningStrategyFactory provisioningStrategyFactory;
+    private final ObjectMapper objectMapper;
+
+    @Value("${provisioning.export.page-size}")
+    private int pageSize;
+
+    /**
+     * Exports every device, or only devices of {@code model} when it is not {@code null}.
+     */
+    public void exportAll(Device.DeviceModel model, ExportFormat format, OutputStream out) throws IOException {
+        try (ExportWriter writer = writer(format, out)) {
+            PageRequest limit = PageRequest.ofSize(pageSize);
+            MacAddress after = null;
+            List<Device> page;
+            do {
+                page = deviceRepository.findPageAfter(after, model, limit);
+                for (Device device : page) {
+                    writer.write(device, render(device));
+                }
+                writer.flush();
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getMacAddress();
+                }
+            } while (page.size() == pageSize);
+        }
+    }
+
+    /**
+     * Exports the given devices, accepting any MAC address notation. Entries that are not MAC
+     * addresses or are missing from the inventory are reported as error records in NDJSON and
+     * skipped in ZIP archives.
+     */
+    public void exportDevices(List<String> macAddresses, ExportFormat format, OutputStream out) throws IOException {
+        try (ExportWriter writer = writer(format, out)) {
+            for (int from = 0; from < macAddresses.size(); from += pageSize) {
+                List<String> chunk = macAddresses.subList(from, Math.min(from + pageSize, macAddresses.size()));
+                List<MacAddress> ids = new ArrayList<>(chunk.size());
+                for (String macAddress : chunk) {
+                    MacAddress id = MacAddress.tryParse(macAddress);
+                    if (id != null) {
+                        ids.add(id);
+                    }
+                }
+                Map<MacAddress, Device> devices = new HashMap<>();
+                deviceRepository.findAllById(ids).forEach(device -> devices.put(device.getMacAddress(), device));
+                for (String macAddress : chunk) {
+                    MacAddress id = MacAddress.tryParse(macAddress);
+                    Device device = id != null ? devices.get(id) : null;
+                    if (device != null) {
+                        writer.write(device, render(device));
+                    } else {
+                        writer.writeMissing(macAddress);
+                    }
+                }
+                writer.flush();
+            }
+        }
+    }
+
+    private RenderedConfig render(Device device) {
+        RenderedConfig cached = renderedConfigCache.get(device.getMacAddress());
+        if (cached != null && cached.getVersion().equals(deviceConfigRenderer.version(
+                device.getModel(), device.getGroupName(), device.getVersion(), device.getUpdatedAt()))) {
+            return cached;
+        }
+        return deviceConfigRenderer.render(device);
+    }
+
+    private ExportWriter writer(ExportFormat format, OutputStream out) throws IOException {
+        switch (format) {
+            case NDJSON:
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                return new NdjsonExportWriter(generator);
+            case ZIP:
+                return new ZipExportWriter(new ZipOutputStream(out), model ->
+                        provisioningStrategyFactory.getStrategy(model).getFileExtension());
+            default:
+                throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+    }
+
+    private interface ExportWriter extends AutoCloseable {
+        void write(Device device, RenderedConfig config) throws IOException;
+
+        void writeMissing(String macAddress) throws IOException;
+
+        void flush() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    @RequiredArgsConstructor
+    private static final class NdjsonExportWriter implements ExportWriter {
+        private final JsonGenerator generator;
+
+        @Override
+        public void write(Device device, RenderedConfig config) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("macAddress", device.getMacAddress().toString());
+            generator.writeStringField("model", device.getModel().name());
+            generator.writeStringField("etag", config.getVersion().getEtag());
+            generator.writeFieldName("config");
+            generator.writeUTF8String(config.getContent(), 0, config.getContent().length);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void writeMissing(String macAddress) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("macAddress", macAddress);
+            generator.writeStringField("error", "Device not found");
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class ZipExportWriter implements ExportWriter {
+        private final ZipOutputStream zip;
+        private final Function<Device.DeviceModel, String> fileExtensions;
+
+        @Override
+        public void write(Device device, RenderedConfig config) throws IOException {
+            zip.putNextEntry(new ZipEntry(device.getMacAddress() + "." + fileExtensions.apply(device.getModel())));
+            zip.write(config.getContent());
+            zip.closeEntry();
+        }
+
+        @Override
+        public void writeMissing(String macAddress) {
+        }
+
+        @Override
+        public void flush() throws IOException {
+            zip.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.finish();
+        }
+    }
+}
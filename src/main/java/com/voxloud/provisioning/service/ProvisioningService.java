@@ -1,6 +1,24 @@
 package com.voxloud.provisioning.service;
 
+import com.voxloud.provisioning.entity.MacAddress;
+
 public interface ProvisioningService {
 
-    String getProvisioningFile(String macAddress);
+    /**
+     * Returns the device's provisioning file as text.
+     *
+     * @throws com.voxloud.provisioning.exception.DeviceNotFoundException if the device is unknown
+     */
+    String getProvisioningFile(MacAddress macAddress);
+
+    /**
+     * Returns the device's provisioning file, or {@code null} if the device is unknown.
+     */
+    RenderedConfig getRenderedConfig(MacAddress macAddress);
+
+    /**
+     * Returns the validators of the device's current provisioning file without rendering it, or
+     * {@code null} if the device is unknown.
+     */
+    ConfigVersion getConfigVersion(MacAddress macAddress);
 }
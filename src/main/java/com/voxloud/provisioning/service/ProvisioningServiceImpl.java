@@ -1,34 +1,140 @@
 package com.voxloud.provisioning.service;
 
+import com.voxloud.provisioning.cache.DeviceMembershipFilter;
+import com.voxloud.provisioning.cache.DeviceMembershipFilter.Membership;
+import com.voxloud.provisioning.cache.RenderedConfigCache;
+import com.voxloud.provisioning.cache.RenderedConfigSnapshot;
 import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
 import com.voxloud.provisioning.exception.DeviceNotFoundException;
-import com.voxloud.provisioning.repository.DeviceRepository;
-import com.voxloud.provisioning.strategy.ProvisioningStrategy;
-import com.voxloud.provisioning.strategy.ProvisioningStrategyFactory;
+import com.voxloud.provisioning.metrics.ProvisioningMetrics;
+import com.voxloud.provisioning.repository.DeviceLookup;
+import com.voxloud.provisioning.repository.DeviceVersion;
+import com.voxloud.provisioning.util.SingleFlight;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
+/**
+ * Serves provisioning files from the rendered file cache, loading and rendering devices on a miss.
+ * After a restart, misses are answered from the {@link RenderedConfigSnapshot} where it is current.
+ * Identical requests arriving while a lookup is in flight wait for it instead of repeating it.
+ * Unknown MAC addresses are answered with {@code null}, most of them by the
+ * {@link DeviceMembershipFilter} before any lookup.
+ */
 @Service
 @RequiredArgsConstructor
 public class ProvisioningServiceImpl implements ProvisioningService {
-    private final DeviceRepository deviceRepository;
-    private final ProvisioningStrategyFactory provisioningStrategyFactory;
+    private final DeviceLookup deviceLookup;
+    private final DeviceConfigRenderer deviceConfigRenderer;
+    private final RenderedConfigCache renderedConfigCache;
+    private final RenderedConfigSnapshot renderedConfigSnapshot;
+    private final DeviceMembershipFilter deviceMembershipFilter;
+    private final ProvisioningMetrics metrics;
+
+    private final SingleFlight<MacAddress, RenderedConfig> renders = new SingleFlight<>();
+    private final SingleFlight<MacAddress, ConfigVersion> versions = new SingleFlight<>();
+
+    @Override
+    public String getProvisioningFile(MacAddress macAddress) {
+        RenderedConfig renderedConfig = getRenderedConfig(macAddress);
+        if (renderedConfig == null) {
+            throw new DeviceNotFoundException("Device not found for MAC address: " + macAddress);
+        }
+        return renderedConfig.asString();
+    }
+
+    @Override
+    public RenderedConfig getRenderedConfig(MacAddress macAddress) {
+        RenderedConfig cached = renderedConfigCache.get(macAddress);
+        if (cached != null) {
+            return cached;
+        }
+        Membership membership = checkMembership(macAddress);
+        if (membership == Membership.ABSENT) {
+            return null;
+        }
+        return renders.execute(macAddress, () -> loadAndRender(macAddress, membership),
+                metrics::deviceLookupCoalesced);
+    }
 
-    @Value("${provisioning.domain}")
-    private String domain;
-    @Value("${provisioning.port}")
-    private String port;
-    @Value("${provisioning.codecs}")
-    private String codecs;
+    private RenderedConfig loadAndRender(MacAddress macAddress, Membership membership) {
+        long stamp = renderedConfigCache.stamp();
+        RenderedConfig rendered = restore(macAddress);
+        if (rendered == null) {
+            long missingStamp = deviceMembershipFilter.stamp();
+            long start = System.nanoTime();
+            Optional<Device> found = deviceLookup.findDevice(macAddress);
+            metrics.recordDeviceLookup(start, found.isPresent());
+            if (found.isEmpty()) {
+                return deviceNotFound(macAddress, membership, missingStamp);
+            }
+            rendered = deviceConfigRenderer.render(found.get());
+        }
+        renderedConfigCache.put(macAddress, rendered, stamp);
+        return rendered;
+    }
+
+    /**
+     * The file held by the snapshot if it is still current, checked against the version columns
+     * alone; {@code null} sends the caller through the full lookup, which also reports devices
+     * deleted since the snapshot was written.
+     */
+    private RenderedConfig restore(MacAddress macAddress) {
+        if (!renderedConfigSnapshot.contains(macAddress)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Optional<DeviceVersion> found = deviceLookup.findVersion(macAddress);
+        metrics.recordVersionLookup(start, found.isPresent());
+        if (found.isEmpty()) {
+            return null;
+        }
+        DeviceVersion deviceVersion = found.get();
+        ConfigVersion version = deviceConfigRenderer.version(deviceVersion.getModel(), deviceVersion.getGroupName(),
+                deviceVersion.getVersion(), deviceVersion.getUpdatedAt());
+        return renderedConfigSnapshot.restore(macAddress, deviceVersion.getModel(), version);
+    }
 
     @Override
-    public String getProvisioningFile(String macAddress) {
-        Device device = deviceRepository.findById(macAddress)
-                .orElseThrow(() ->
-                        new DeviceNotFoundException("Device not found for MAC address: " + macAddress));
+    public ConfigVersion getConfigVersion(MacAddress macAddress) {
+        RenderedConfig cached = renderedConfigCache.get(macAddress);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+        Membership membership = checkMembership(macAddress);
+        if (membership == Membership.ABSENT) {
+            return null;
+        }
+        return versions.execute(macAddress, () -> loadVersion(macAddress, membership),
+                metrics::versionLookupCoalesced);
+    }
+
+    private ConfigVersion loadVersion(MacAddress macAddress, Membership membership) {
+        long missingStamp = deviceMembershipFilter.stamp();
+        long start = System.nanoTime();
+        Optional<DeviceVersion> found = deviceLookup.findVersion(macAddress);
+        metrics.recordVersionLookup(start, found.isPresent());
+        if (found.isEmpty()) {
+            return deviceNotFound(macAddress, membership, missingStamp);
+        }
+        DeviceVersion deviceVersion = found.get();
+        return deviceConfigRenderer.version(deviceVersion.getModel(), deviceVersion.getGroupName(),
+                deviceVersion.getVersion(), deviceVersion.getUpdatedAt());
+    }
+
+    private Membership checkMembership(MacAddress macAddress) {
+        Membership membership = deviceMembershipFilter.check(macAddress);
+        if (membership == Membership.ABSENT) {
+            metrics.deviceNotFound();
+        }
+        return membership;
+    }
 
-        ProvisioningStrategy strategy = provisioningStrategyFactory.getStrategy(device.getModel());
-        return strategy.generateConfig(device, domain, port, codecs);
+    private <T> T deviceNotFound(MacAddress macAddress, Membership membership, long missingStamp) {
+        deviceMembershipFilter.recordMissing(macAddress, membership, missingStamp);
+        metrics.deviceNotFound();
+        return null;
     }
 }
@@ -0,0 +1,44 @@
+package com.voxloud.provisioning.service;
+
+import com.voxloud.provisioning.entity.Device;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A provisioning file rendered for one device, with its gzip variant when compressing it pays off.
+ * The content arrays are shared with the cache and must never be modified.
+ */
+@Value
+@AllArgsConstructor
+public class RenderedConfig {
+    Device.DeviceModel model;
+    String contentType;
+    byte[] content;
+    byte[] gzipContent;
+    ConfigVersion version;
+
+    public RenderedConfig(Device.DeviceModel model, String contentType, byte[] content, ConfigVersion version) {
+        this(model, contentType, content, null, version);
+    }
+
+    /**
+     * Whether the file is stored in {@code coding}; files without a smaller variant are only held
+     * uncompressed.
+     */
+    public boolean isEncoded(ContentCoding coding) {
+        return coding == ContentCoding.GZIP && gzipContent != null;
+    }
+
+    /**
+     * The bytes to send to a client that negotiated {@code coding}.
+     */
+    public byte[] getContent(ContentCoding coding) {
+        return isEncoded(coding) ? gzipContent : content;
+    }
+
+    public String asString() {
+        return new String(content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,199 @@
+package com.voxloud.provisioning.settings;
+
+import com.voxloud.provisioning.config.ProvisioningProperties;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.event.SettingsChangedEvent;
+import com.voxloud.provisioning.template.ProvisioningSettings;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * Holds the current {@link SettingsLayers}, built from the {@code provisioning.*} properties and the
+ * optional {@code provisioning.settings.location} file.
+ * <p>
+ * The file is checked every {@code provisioning.settings.reload-interval}. When its content yields
+ * different layers, they are swapped in and a {@link SettingsChangedEvent} is published; a file that
+ * cannot be read or parsed is logged and the previous layers are kept.
+ */
+@Slf4j
+public class LayeredSettings {
+    private static final String GLOBAL_PREFIX = "global.";
+    private static final String MODELS_PREFIX = "models.";
+    private static final String GROUPS_PREFIX = "groups.";
+
+    private final Map<String, String> defaults;
+    private final ProvisioningProperties.Settings properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TaskScheduler taskScheduler;
+
+    private volatile SettingsLayers layers;
+    private volatile Instant lastModified;
+    private Object fileStamp;
+
+    public LayeredSettings(Map<String, String> defaults,
+                           ProvisioningProperties.Settings properties,
+                           ApplicationEventPublisher eventPublisher,
+                           TaskScheduler taskScheduler) {
+        this.defaults = Map.copyOf(defaults);
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+        this.taskScheduler = taskScheduler;
+        this.fileStamp = fileStamp();
+        Instant fileModified = fileModified();
+        this.lastModified = fileModified != null ? fileModified : Instant.EPOCH;
+        this.layers = build(readFile());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.getLocation() != null) {
+            taskScheduler.scheduleWithFixedDelay(this::reloadIfModified,
+                    Instant.now().plus(properties.getReloadInterval()), properties.getReloadInterval());
+        }
+    }
+
+    public SettingsLayers current() {
+        return layers;
+    }
+
+    /**
+     * When the current layers last changed: the modification time of the settings file, or the epoch
+     * when there is none, so that every instance and every restart agrees on it. A reload that changes
+     * the layers without moving the file's time forward, as removing the file does, uses the time of
+     * the reload instead. Set before the layers themselves, so it is never older than the layers a
+     * render read.
+     */
+    public Instant lastModified() {
+        return lastModified;
+    }
+
+    public ProvisioningSettings resolve(Device.DeviceModel model, String group) {
+        return layers.resolve(model, group);
+    }
+
+    /**
+     * Rebuilds the layers from the settings file and returns whether they changed.
+     */
+    public synchronized boolean reload() {
+        fileStamp = fileStamp();
+        SettingsLayers reloaded;
+        try {
+            reloaded = build(readFile());
+        } catch (RuntimeException e) {
+            log.warn("Keeping the current settings, {} could not be loaded: {}", properties.getLocation(),
+                    e.getMessage());
+            return false;
+        }
+        if (reloaded.equals(layers)) {
+            return false;
+        }
+        Instant fileModified = fileModified();
+        lastModified = fileModified != null && fileModified.isAfter(lastModified) ? fileModified : Instant.now();
+        layers = reloaded;
+        log.info("Reloaded provisioning settings from {}", properties.getLocation());
+        eventPublisher.publishEvent(new SettingsChangedEvent(reloaded));
+        return true;
+    }
+
+    synchronized void reloadIfModified() {
+        if (!Objects.equals(fileStamp, fileStamp())) {
+            reload();
+        }
+    }
+
+    private SettingsLayers build(Properties file) {
+        Map<String, String> global = new HashMap<>(defaults);
+        global.putAll(properties.getGlobal());
+        Map<Device.DeviceModel, Map<String, String>> models = new EnumMap<>(Device.DeviceModel.class);
+        properties.getModels().forEach((model, values) -> models.put(model, new HashMap<>(values)));
+        Map<String, Map<String, String>> groups = new HashMap<>();
+        properties.getGroups().forEach((group, values) -> groups.put(group, new HashMap<>(values)));
+
+        for (String key : file.stringPropertyNames()) {
+            String value = file.getProperty(key).trim();
+            if (key.startsWith(GLOBAL_PREFIX)) {
+                global.put(key.substring(GLOBAL_PREFIX.length()), value);
+            } else if (key.startsWith(MODELS_PREFIX)) {
+                String[] parts = split(key, MODELS_PREFIX);
+                models.computeIfAbsent(Device.DeviceModel.valueOf(parts[0]), model -> new HashMap<>())
+                        .put(parts[1], value);
+            } else if (key.startsWith(GROUPS_PREFIX)) {
+                String[] parts = split(key, GROUPS_PREFIX);
+                groups.computeIfAbsent(parts[0], group -> new HashMap<>()).put(parts[1], value);
+            } else {
+                throw new IllegalArgumentException("Unknown settings key: " + key);
+            }
+        }
+        return new SettingsLayers(global, models, groups);
+    }
+
+    private static String[] split(String key, String prefix) {
+        int separator = key.indexOf('.', prefix.length());
+        if (separator < 0 || separator == key.length() - 1) {
+            throw new IllegalArgumentException("Settings key without a setting name: " + key);
+        }
+        return new String[] {key.substring(prefix.length(), separator), key.substring(separator + 1)};
+    }
+
+    /**
+     * Reads the settings file. A missing file contributes no settings, so removing it reverts to the
+     * {@code provisioning.*} properties.
+     */
+    private Properties readFile() {
+        Properties file = new Properties();
+        Path location = properties.getLocation();
+        if (location == null) {
+            return file;
+        }
+        try (Reader reader = Files.newBufferedReader(location, StandardCharsets.UTF_8)) {
+            file.load(reader);
+        } catch (NoSuchFileException e) {
+            log.warn("Settings file {} does not exist", location);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read settings file " + location, e);
+        }
+        return file;
+    }
+
+    private Instant fileModified() {
+        Path location = properties.getLocation();
+        if (location == null) {
+            return null;
+        }
+        try {
+            return Files.getLastModifiedTime(location).toInstant();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Object fileStamp() {
+        Path location = properties.getLocation();
+        if (location == null) {
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(location, BasicFileAttributes.class);
+            return attributes.lastModifiedTime() + "/" + attributes.size();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
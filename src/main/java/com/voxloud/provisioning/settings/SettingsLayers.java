@@ -0,0 +1,85 @@
+package com.voxloud.provisioning.settings;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.template.ProvisioningSettings;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable set of the shared configuration layers. From lowest to highest precedence: global
+ * values, per-model values and per-group values; the device override fragment is applied on top
+ * at render time.
+ * <p>
+ * Every model, and every combination of a model with a group, is merged once when the layers are
+ * built, so a render only looks up its pre-merged {@link ProvisioningSettings}.
+ */
+public final class SettingsLayers {
+    private final Map<String, String> global;
+    private final Map<Device.DeviceModel, Map<String, String>> models;
+    private final Map<String, Map<String, String>> groups;
+
+    private final Map<Device.DeviceModel, ProvisioningSettings> modelSettings =
+            new EnumMap<>(Device.DeviceModel.class);
+    private final Map<String, Map<Device.DeviceModel, ProvisioningSettings>> groupSettings = new HashMap<>();
+
+    public SettingsLayers(Map<String, String> global,
+                          Map<Device.DeviceModel, Map<String, String>> models,
+                          Map<String, Map<String, String>> groups) {
+        this.global = Map.copyOf(global);
+        this.models = copyLayers(models);
+        this.groups = copyLayers(groups);
+
+        for (Device.DeviceModel model : Device.DeviceModel.values()) {
+            Map<String, String> values = new HashMap<>(this.global);
+            values.putAll(this.models.getOrDefault(model, Map.of()));
+            modelSettings.put(model, new ProvisioningSettings(values));
+        }
+        for (var group : this.groups.entrySet()) {
+            Map<Device.DeviceModel, ProvisioningSettings> settings = new EnumMap<>(Device.DeviceModel.class);
+            for (Device.DeviceModel model : Device.DeviceModel.values()) {
+                Map<String, String> values = new HashMap<>(modelSettings.get(model).asMap());
+                values.putAll(group.getValue());
+                settings.put(model, new ProvisioningSettings(values));
+            }
+            groupSettings.put(group.getKey(), settings);
+        }
+    }
+
+    /**
+     * Settings of a device of {@code model} in {@code group}. Devices without a group, or in a
+     * group that has no settings of its own, get the settings of their model.
+     */
+    public ProvisioningSettings resolve(Device.DeviceModel model, String group) {
+        if (group != null) {
+            Map<Device.DeviceModel, ProvisioningSettings> settings = groupSettings.get(group);
+            if (settings != null) {
+                return settings.get(model);
+            }
+        }
+        return modelSettings.get(model);
+    }
+
+    private static <K> Map<K, Map<String, String>> copyLayers(Map<K, Map<String, String>> layers) {
+        Map<K, Map<String, String>> copy = new HashMap<>();
+        layers.forEach((key, values) -> copy.put(key, Map.copyOf(values)));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof SettingsLayers)) {
+            return false;
+        }
+        SettingsLayers that = (SettingsLayers) other;
+        return global.equals(that.global) && models.equals(that.models) && groups.equals(that.groups);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(global, models, groups);
+    }
+}
@@ -1,7 +1,47 @@
 package com.voxloud.provisioning.strategy;
 
 import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.template.ProvisioningSettings;
+import com.voxloud.provisioning.template.RenderBuffer;
 
+import java.util.Set;
+
+/**
+ * Generates the configuration file of one device model. Implementations are stateless singletons
+ * shared by all requests.
+ */
 public interface ProvisioningStrategy {
-    String generateConfig(Device device, String domain, String port, String codecs);
+    /**
+     * The device model this strategy provisions.
+     */
+    Device.DeviceModel getModel();
+
+    /**
+     * Appends the UTF-8 encoded configuration file of {@code device} to {@code out}.
+     */
+    void render(Device device, ProvisioningSettings settings, RenderBuffer out);
+
+    /**
+     * Media type of the generated configuration.
+     */
+    String getContentType();
+
+    /**
+     * File name extension of the generated configuration, used when files are exported in bulk.
+     */
+    String getFileExtension();
+
+    /**
+     * Hash identifying the output format, mixed into entity tags so that a changed format is never
+     * answered with 304 Not Modified.
+     */
+    long fingerprint();
+
+    /**
+     * Override fragment keys the generated configuration reads, or {@code null} if any key is
+     * accepted. Fragments naming other keys are rejected when a device is written.
+     */
+    default Set<String> getOverrideKeys() {
+        return null;
+    }
 }
@@ -1,21 +1,39 @@
 package com.voxloud.provisioning.strategy;
 
 import com.voxloud.provisioning.entity.Device;
-import com.voxloud.provisioning.util.OverrideFragmentParser;
-import lombok.RequiredArgsConstructor;
+import com.voxloud.provisioning.exception.UnsupportedDeviceModelException;
 
-@RequiredArgsConstructor
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Looks up the {@link ProvisioningStrategy} of a device model.
+ * <p>
+ * Strategies are stateless and registered once: every {@code ProvisioningStrategy} bean in the
+ * application context is picked up, so support for a new model can be shipped in a separate jar
+ * contributing its strategy through an auto-configuration, without touching this class.
+ */
 public class ProvisioningStrategyFactory {
-    private final OverrideFragmentParser overrideFragmentParser;
+    private final Map<Device.DeviceModel, ProvisioningStrategy> strategies =
+            new EnumMap<>(Device.DeviceModel.class);
+
+    public ProvisioningStrategyFactory(Collection<? extends ProvisioningStrategy> strategies) {
+        for (ProvisioningStrategy strategy : strategies) {
+            ProvisioningStrategy previous = this.strategies.putIfAbsent(strategy.getModel(), strategy);
+            if (previous != null) {
+                throw new IllegalStateException("Duplicate provisioning strategies for device model "
+                        + strategy.getModel() + ": " + previous.getClass().getName() + " and "
+                        + strategy.getClass().getName());
+            }
+        }
+    }
 
     public ProvisioningStrategy getStrategy(Device.DeviceModel model) {
-        switch (model) {
-            case DESK:
-                return new DeskProvisioningStrategy(overrideFragmentParser);
-            case CONFERENCE:
-                return new ConferenceProvisioningStrategy(overrideFragmentParser);
-            default:
-                throw new IllegalArgumentException("Unsupported device model: " + model);
+        ProvisioningStrategy strategy = model != null ? strategies.get(model) : null;
+        if (strategy == null) {
+            throw new UnsupportedDeviceModelException("Unsupported device model: " + model);
         }
+        return strategy;
     }
 }
@@ -0,0 +1,42 @@
+package com.voxloud.provisioning.strategy;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.template.ConfigTemplate;
+import com.voxloud.provisioning.template.ProvisioningSettings;
+import com.voxloud.provisioning.template.RenderBuffer;
+import com.voxloud.provisioning.util.OverrideFragmentParser;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * Strategy rendering a device model's configuration from a precompiled {@link ConfigTemplate}.
+ */
+@RequiredArgsConstructor
+public class TemplateProvisioningStrategy implements ProvisioningStrategy {
+    @Getter
+    private final Device.DeviceModel model;
+    @Getter
+    private final ConfigTemplate template;
+    @Getter
+    private final String contentType;
+    @Getter
+    private final String fileExtension;
+    private final OverrideFragmentParser overrideFragmentParser;
+
+    @Override
+    public void render(Device device, ProvisioningSettings settings, RenderBuffer out) {
+        template.render(device, overrideFragmentParser.getOverrides(device, template.getSettingNames()), settings, out);
+    }
+
+    @Override
+    public long fingerprint() {
+        return template.fingerprint();
+    }
+
+    @Override
+    public Set<String> getOverrideKeys() {
+        return template.getSettingNames();
+    }
+}
@@ -0,0 +1,188 @@
+package com.voxloud.provisioning.template;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.util.OverrideFragment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A configuration file format compiled once into literal byte segments and typed slots.
+ * <p>
+ * Slots are written as {@code ${name}} with optional default value and encoder, e.g.
+ * {@code ${timeout=10}} or {@code ${codecs|json-list}}:
+ * <ul>
+ *     <li>{@code ${device.username}} reads a column of the device row ({@code macAddress},
+ *     {@code model}, {@code username} or {@code password});</li>
+ *     <li>any other name is a setting: the device override fragment wins, then the
+ *     {@link ProvisioningSettings}, then the default written in the template.</li>
+ * </ul>
+ * Encoders are {@code raw} (default), {@code json} and {@code json-list}, see {@link SlotEncoder}.
+ * Rendering is a single pass over the segments into a {@link RenderBuffer}.
+ */
+public final class ConfigTemplate {
+    private static final String SLOT_START = "${";
+    private static final String SLOT_END = "}";
+    private static final String DEVICE_PREFIX = "device.";
+    private static final int SLOT_SIZE_ESTIMATE = 16;
+
+    private final Segment[] segments;
+    private final Set<String> settingNames;
+    private final int estimatedSize;
+    private final long fingerprint;
+
+    private ConfigTemplate(List<Segment> segments, Set<String> settingNames, int estimatedSize, long fingerprint) {
+        this.segments = segments.toArray(new Segment[0]);
+        this.settingNames = Collections.unmodifiableSet(settingNames);
+        this.estimatedSize = estimatedSize;
+        this.fingerprint = fingerprint;
+    }
+
+    public static ConfigTemplate compile(String source) {
+        List<Segment> segments = new ArrayList<>();
+        Set<String> settingNames = new LinkedHashSet<>();
+        int estimatedSize = 0;
+        int position = 0;
+        while (position < source.length()) {
+            int start = source.indexOf(SLOT_START, position);
+            if (start < 0) {
+                start = source.length();
+            }
+            if (start > position) {
+                Literal literal = new Literal(source.substring(position, start).getBytes(StandardCharsets.UTF_8));
+                segments.add(literal);
+                estimatedSize += literal.bytes.length;
+            }
+            if (start == source.length()) {
+                break;
+            }
+            int end = source.indexOf(SLOT_END, start + SLOT_START.length());
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated template slot at offset " + start);
+            }
+            Segment slot = compileSlot(source.substring(start + SLOT_START.length(), end).trim());
+            if (slot instanceof SettingSlot) {
+                settingNames.add(((SettingSlot) slot).name);
+            }
+            segments.add(slot);
+            estimatedSize += SLOT_SIZE_ESTIMATE;
+            position = end + SLOT_END.length();
+        }
+        return new ConfigTemplate(segments, settingNames, estimatedSize, new Fingerprint().add(source).value());
+    }
+
+    private static Segment compileSlot(String expression) {
+        SlotEncoder encoder = SlotEncoder.RAW;
+        int encoderSeparator = expression.lastIndexOf('|');
+        if (encoderSeparator >= 0) {
+            encoder = SlotEncoder.of(expression.substring(encoderSeparator + 1).trim());
+            expression = expression.substring(0, encoderSeparator);
+        }
+        String defaultValue = null;
+        int defaultSeparator = expression.indexOf('=');
+        if (defaultSeparator >= 0) {
+            defaultValue = expression.substring(defaultSeparator + 1);
+            expression = expression.substring(0, defaultSeparator);
+        }
+        String name = expression.trim();
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Template slot without a name");
+        }
+        if (name.startsWith(DEVICE_PREFIX)) {
+            return new DeviceSlot(DeviceField.of(name.substring(DEVICE_PREFIX.length())), encoder);
+        }
+        return new SettingSlot(name, encoder, defaultValue);
+    }
+
+    public void render(Device device, OverrideFragment overrides, ProvisioningSettings settings, RenderBuffer out) {
+        out.ensureCapacity(out.size() + estimatedSize);
+        for (Segment segment : segments) {
+            segment.render(device, overrides, settings, out);
+        }
+    }
+
+    /**
+     * Names of the settings this template reads, i.e. the keys an override fragment can replace.
+     */
+    public Set<String> getSettingNames() {
+        return settingNames;
+    }
+
+    /**
+     * 64-bit digest of the template source, used to derive entity tags of files rendered from it.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    private interface Segment {
+        void render(Device device, OverrideFragment overrides, ProvisioningSettings settings, RenderBuffer out);
+    }
+
+    private static final class Literal implements Segment {
+        private final byte[] bytes;
+
+        Literal(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void render(Device device, OverrideFragment overrides, ProvisioningSettings settings,
+                           RenderBuffer out) {
+            out.write(bytes);
+        }
+    }
+
+    private static final class DeviceSlot implements Segment {
+        private final DeviceField field;
+        private final SlotEncoder encoder;
+
+        DeviceSlot(DeviceField field, SlotEncoder encoder) {
+            this.field = field;
+            this.encoder = encoder;
+        }
+
+        @Override
+        public void render(Device device, OverrideFragment overrides, ProvisioningSettings settings,
+                           RenderBuffer out) {
+            encoder.encode(field.read(device), out);
+        }
+    }
+
+    static final class SettingSlot implements Segment {
+        private final String name;
+        private final SlotEncoder encoder;
+        private final String defaultValue;
+
+        SettingSlot(String name, SlotEncoder encoder, String defaultValue) {
+            this.name = name;
+            this.encoder = encoder;
+            this.defaultValue = defaultValue;
+        }
+
+        @Override
+        public void render(Device device, OverrideFragment overrides, ProvisioningSettings settings,
+                           RenderBuffer out) {
+            String override = overrides.get(name, null);
+            if (override != null) {
+                encoder.encode(override, out);
+            } else {
+                out.write(settings.encoded(this));
+            }
+        }
+
+        byte[] encodeDefault(ProvisioningSettings settings) {
+            String value = settings.get(name);
+            if (value == null) {
+                value = defaultValue != null ? defaultValue : "";
+            }
+            RenderBuffer buffer = new RenderBuffer(value.length() + 8);
+            encoder.encode(value, buffer);
+            return buffer.toByteArray();
+        }
+    }
+}
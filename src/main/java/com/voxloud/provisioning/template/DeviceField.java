@@ -0,0 +1,38 @@
+package com.voxloud.provisioning.template;
+
+import com.voxloud.provisioning.entity.Device;
+
+import java.util.function.Function;
+
+/**
+ * Device columns that templates can reference as {@code ${device.<name>}}. These values always come
+ * from the device row and cannot be replaced by override fragments.
+ */
+enum DeviceField {
+    MAC_ADDRESS("macAddress", device -> device.getMacAddress() != null ? device.getMacAddress().toString() : null),
+    MODEL("model", device -> device.getModel().name()),
+    USERNAME("username", Device::getUsername),
+    PASSWORD("password", Device::getPassword);
+
+    private final String id;
+    private final Function<Device, String> accessor;
+
+    DeviceField(String id, Function<Device, String> accessor) {
+        this.id = id;
+        this.accessor = accessor;
+    }
+
+    String read(Device device) {
+        String value = accessor.apply(device);
+        return value != null ? value : "";
+    }
+
+    static DeviceField of(String id) {
+        for (DeviceField field : values()) {
+            if (field.id.equals(id)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown device field in template: " + id);
+    }
+}
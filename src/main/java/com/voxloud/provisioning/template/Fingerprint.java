@@ -0,0 +1,37 @@
+package com.voxloud.provisioning.template;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 64-bit FNV-1a digest, fed with length-prefixed strings so that no two sequences of strings
+ * produce the same input bytes.
+ */
+final class Fingerprint {
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    Fingerprint add(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        addInt(bytes.length);
+        for (byte b : bytes) {
+            addByte(b);
+        }
+        return this;
+    }
+
+    long value() {
+        return hash;
+    }
+
+    private void addInt(int value) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            addByte((byte) (value >>> shift));
+        }
+    }
+
+    private void addByte(byte b) {
+        hash = (hash ^ (b & 0xff)) * PRIME;
+    }
+}
@@ -0,0 +1,66 @@
+package com.voxloud.provisioning.template;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable set of configuration values shared by many devices, such as the {@code provisioning.*}
+ * properties. Templates fall back to these values when a device has no override for a setting.
+ * <p>
+ * Settings also memoize the encoded bytes of every template slot that reads them, so that a value
+ * like the codec list is encoded once instead of on every render.
+ */
+public final class ProvisioningSettings {
+    private final Map<String, String> values;
+    private final long fingerprint;
+    private final ConcurrentMap<ConfigTemplate.SettingSlot, byte[]> encodedSlots = new ConcurrentHashMap<>();
+
+    public ProvisioningSettings(Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(new TreeMap<>(values));
+        this.fingerprint = fingerprint(this.values);
+    }
+
+    public String get(String name) {
+        return values.get(name);
+    }
+
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    /**
+     * Stable 64-bit digest of the sorted names and values, used to derive entity tags of files
+     * rendered from these settings.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    byte[] encoded(ConfigTemplate.SettingSlot slot) {
+        byte[] encoded = encodedSlots.get(slot);
+        if (encoded == null) {
+            encoded = encodedSlots.computeIfAbsent(slot, key -> key.encodeDefault(this));
+        }
+        return encoded;
+    }
+
+    private static long fingerprint(Map<String, String> sortedValues) {
+        Fingerprint fingerprint = new Fingerprint();
+        sortedValues.forEach((name, value) -> fingerprint.add(name).add(value));
+        return fingerprint.value();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ProvisioningSettings && values.equals(((ProvisioningSettings) other).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(values);
+    }
+}
@@ -0,0 +1,96 @@
+package com.voxloud.provisioning.template;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer that templates render into. Buffers are reused through a
+ * {@link RenderBufferPool}; {@link #reset()} keeps the backing array so that steady-state rendering
+ * does not allocate beyond the final copy of the result. A buffer is not thread-safe.
+ */
+public final class RenderBuffer {
+    private byte[] bytes;
+    private int size;
+
+    public RenderBuffer(int initialCapacity) {
+        bytes = new byte[initialCapacity];
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return bytes.length;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length << 1));
+        }
+    }
+
+    public void write(byte value) {
+        ensureCapacity(size + 1);
+        bytes[size++] = value;
+    }
+
+    public void write(byte[] value) {
+        ensureCapacity(size + value.length);
+        System.arraycopy(value, 0, bytes, size, value.length);
+        size += value.length;
+    }
+
+    /**
+     * Appends the UTF-8 encoding of {@code value} without going through an intermediate array.
+     */
+    public void writeUtf8(CharSequence value) {
+        writeUtf8(value, 0, value.length());
+    }
+
+    /**
+     * Appends the UTF-8 encoding of the characters of {@code value} from {@code from} (inclusive) to
+     * {@code to} (exclusive).
+     */
+    public void writeUtf8(CharSequence value, int from, int to) {
+        ensureCapacity(size + (to - from));
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[size++] = (byte) c;
+                continue;
+            }
+            ensureCapacity(size + 4 + (to - i));
+            if (c < 0x800) {
+                bytes[size++] = (byte) (0xc0 | (c >> 6));
+                bytes[size++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < to
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[size++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[size++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                bytes[size++] = '?';
+            } else {
+                bytes[size++] = (byte) (0xe0 | (c >> 12));
+                bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[size++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+}
@@ -0,0 +1,43 @@
+package com.voxloud.provisioning.template;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Small bounded pool of {@link RenderBuffer}s.
+ * <p>
+ * A pool is used instead of a {@code ThreadLocal} because request threads may be virtual threads,
+ * which are created per request and would never reuse a thread-local buffer. The queue is guarded by
+ * a {@code ReentrantLock}, so waiting on it never pins a carrier thread; it is also never waited on,
+ * as an empty pool simply hands out a fresh buffer.
+ */
+public final class RenderBufferPool {
+    private final BlockingQueue<RenderBuffer> buffers;
+    private final int initialBufferSize;
+    private final int maxRetainedBufferSize;
+
+    public RenderBufferPool(int capacity, int initialBufferSize, int maxRetainedBufferSize) {
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+        this.initialBufferSize = initialBufferSize;
+        this.maxRetainedBufferSize = maxRetainedBufferSize;
+    }
+
+    public RenderBuffer acquire() {
+        RenderBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return new RenderBuffer(initialBufferSize);
+        }
+        buffer.reset();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers that grew beyond the retained size limit are dropped so a
+     * single oversized render does not pin memory forever.
+     */
+    public void release(RenderBuffer buffer) {
+        if (buffer.capacity() <= maxRetainedBufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+}
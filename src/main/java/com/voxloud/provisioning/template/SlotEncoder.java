@@ -0,0 +1,107 @@
+package com.voxloud.provisioning.template;
+
+/**
+ * How a slot value is written into the rendered file.
+ */
+public enum SlotEncoder {
+    /**
+     * The value as is.
+     */
+    RAW("raw") {
+        @Override
+        void encode(String value, RenderBuffer out) {
+            out.writeUtf8(value);
+        }
+    },
+    /**
+     * The value escaped for use inside a JSON string literal; the quotes come from the template.
+     */
+    JSON("json") {
+        @Override
+        void encode(String value, RenderBuffer out) {
+            writeJsonEscaped(value, 0, value.length(), out);
+        }
+    },
+    /**
+     * A comma separated value written as the quoted elements of a JSON array, e.g.
+     * {@code G711,G729} becomes {@code "G711", "G729"}; the brackets come from the template.
+     */
+    JSON_LIST("json-list") {
+        @Override
+        void encode(String value, RenderBuffer out) {
+            int start = 0;
+            boolean first = true;
+            while (start <= value.length()) {
+                int end = value.indexOf(',', start);
+                if (end < 0) {
+                    end = value.length();
+                }
+                int from = start;
+                int to = end;
+                while (from < to && Character.isWhitespace(value.charAt(from))) {
+                    from++;
+                }
+                while (to > from && Character.isWhitespace(value.charAt(to - 1))) {
+                    to--;
+                }
+                if (!first) {
+                    out.write((byte) ',');
+                    out.write((byte) ' ');
+                }
+                out.write((byte) '"');
+                writeJsonEscaped(value, from, to, out);
+                out.write((byte) '"');
+                first = false;
+                start = end + 1;
+            }
+        }
+    };
+
+    private final String id;
+
+    SlotEncoder(String id) {
+        this.id = id;
+    }
+
+    abstract void encode(String value, RenderBuffer out);
+
+    static SlotEncoder of(String id) {
+        for (SlotEncoder encoder : values()) {
+            if (encoder.id.equals(id)) {
+                return encoder;
+            }
+        }
+        throw new IllegalArgumentException("Unknown template encoder: " + id);
+    }
+
+    private static void writeJsonEscaped(String value, int from, int to, RenderBuffer out) {
+        int plainStart = from;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.writeUtf8(value, plainStart, i);
+            out.write((byte) '\\');
+            switch (c) {
+                case '"':
+                case '\\':
+                    out.write((byte) c);
+                    break;
+                case '\n':
+                    out.write((byte) 'n');
+                    break;
+                case '\r':
+                    out.write((byte) 'r');
+                    break;
+                case '\t':
+                    out.write((byte) 't');
+                    break;
+                default:
+                    out.writeUtf8(String.format("u%04x", (int) c));
+            }
+            plainStart = i + 1;
+        }
+        out.writeUtf8(value, plainStart, to);
+    }
+}
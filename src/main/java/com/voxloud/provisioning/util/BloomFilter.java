@@ -0,0 +1,94 @@
+package com.voxloud.provisioning.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter of {@code long} keys. Adds and queries never lock; bits are set with
+ * compare-and-set, so a key is visible to every query that starts after its {@link #put} returns.
+ * <p>
+ * Bit positions come from double hashing of two 32-bit halves of a 64-bit mix of the key, which
+ * is enough for keys such as MAC addresses whose low bits are nearly sequential.
+ */
+public final class BloomFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong bitsSet = new AtomicLong();
+
+    private BloomFilter(long bitCount, int hashCount) {
+        this.bits = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * A filter sized for {@code expectedKeys} keys at a false positive rate of {@code fpp}.
+     */
+    public static BloomFilter create(long expectedKeys, double fpp) {
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1, got " + fpp);
+        }
+        long keys = Math.max(1, expectedKeys);
+        long bitCount = Math.max(64, (long) Math.ceil(-keys * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        if (bitCount > Integer.MAX_VALUE * 64L) {
+            throw new IllegalArgumentException("Bloom filter for " + expectedKeys + " keys is too large");
+        }
+        int hashCount = Math.max(1, (int) Math.round((double) bitCount / keys * Math.log(2)));
+        return new BloomFilter(bitCount, hashCount);
+    }
+
+    public void put(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current = bits.get(word);
+            while ((current & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    bitsSet.incrementAndGet();
+                    break;
+                }
+                current = bits.get(word);
+            }
+        }
+    }
+
+    /**
+     * Whether {@code key} may have been added. {@code false} is definitive.
+     */
+    public boolean mightContain(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * False positive rate at the current fill: the probability that all bits of an absent key are
+     * set.
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitsSet.get() / bitCount, hashCount);
+    }
+
+    public long bitSize() {
+        return bitCount;
+    }
+
+    private static long mix(long key) {
+        // Stafford variant 13 of the MurmurHash3 finalizer.
+        key = (key ^ (key >>> 30)) * 0xbf58476d1ce4e5b9L;
+        key = (key ^ (key >>> 27)) * 0x94d049bb133111ebL;
+        return key ^ (key >>> 31);
+    }
+}
@@ -0,0 +1,58 @@
+package com.voxloud.provisioning.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Binary form of a validated override fragment, stored in {@code device.override_compiled}: a
+ * format version byte, the entry count, then each key and value in modified UTF-8, keys sorted so
+ * that equal fragments always compile to equal bytes.
+ */
+public final class CompiledOverrides {
+    private static final byte FORMAT_VERSION = 1;
+
+    private CompiledOverrides() {
+    }
+
+    public static byte[] encode(Map<String, String> values) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + values.size() * 24);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeShort(values.size());
+            for (var entry : new TreeMap<>(values).entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes compiled overrides, or returns {@code null} if they were written in another format
+     * version, in which case the raw fragment has to be parsed instead.
+     */
+    public static Map<String, String> decode(byte[] compiled) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(compiled))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                return null;
+            }
+            int size = in.readUnsignedShort();
+            Map<String, String> values = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                values.put(in.readUTF(), in.readUTF());
+            }
+            return values;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt compiled override fragment", e);
+        }
+    }
+}
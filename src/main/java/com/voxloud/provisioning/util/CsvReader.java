@@ -0,0 +1,118 @@
+package com.voxloud.provisioning.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader of RFC 4180 CSV: comma separated fields, optionally enclosed in double quotes,
+ * with {@code ""} standing for a quote inside a quoted field. Quoted fields may contain commas and
+ * line breaks; records end with LF or CRLF. Unquoted empty fields are read as {@code null}.
+ */
+public class CsvReader {
+    private final Reader in;
+    private int peeked = -2;
+    private int line = 1;
+    private int recordLine;
+
+    /**
+     * @param in source of the CSV text, ideally buffered since it is read one character at a time
+     */
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * The fields of the next non-blank record, or {@code null} at the end of the input.
+     *
+     * @throws IllegalArgumentException if the input ends inside a quoted field
+     */
+    public List<String> next() throws IOException {
+        List<String> fields;
+        do {
+            fields = readRecord();
+        } while (fields != null && fields.size() == 1 && fields.get(0) == null);
+        return fields;
+    }
+
+    /**
+     * Line on which the record last returned by {@link #next()} starts, counting from 1.
+     */
+    public int getLine() {
+        return recordLine;
+    }
+
+    private List<String> readRecord() throws IOException {
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                if (fields.isEmpty() && field.length() == 0 && !quoted) {
+                    return null;
+                }
+                fields.add(value(field, quoted));
+                return fields;
+            }
+            if (c == '"' && field.length() == 0 && !quoted) {
+                quoted = true;
+                readQuoted(field);
+            } else if (c == ',') {
+                fields.add(value(field, quoted));
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && peek() == '\n') {
+                    read();
+                }
+                line++;
+                fields.add(value(field, quoted));
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private void readQuoted(StringBuilder field) throws IOException {
+        int startLine = line;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IllegalArgumentException("Unterminated quoted field starting on line " + startLine);
+            }
+            if (c == '"') {
+                if (peek() != '"') {
+                    return;
+                }
+                read();
+            } else if (c == '\n') {
+                line++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    private static String value(StringBuilder field, boolean quoted) {
+        return quoted || field.length() > 0 ? field.toString() : null;
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return in.read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = in.read();
+        }
+        return peeked;
+    }
+}
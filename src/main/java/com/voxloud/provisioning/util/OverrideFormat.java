@@ -0,0 +1,25 @@
+package com.voxloud.provisioning.util;
+
+/**
+ * Syntax of a device override fragment.
+ */
+public enum OverrideFormat {
+    NONE, JSON, PROPERTIES;
+
+    /**
+     * Detects the format the same way {@link OverrideFragmentParser} does: a fragment whose first
+     * non-blank character is <code>{</code> is JSON, any other non-empty fragment is properties.
+     */
+    public static OverrideFormat of(String fragment) {
+        if (fragment == null) {
+            return NONE;
+        }
+        for (int i = 0; i < fragment.length(); i++) {
+            char c = fragment.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{' ? JSON : PROPERTIES;
+            }
+        }
+        return fragment.isEmpty() ? NONE : PROPERTIES;
+    }
+}
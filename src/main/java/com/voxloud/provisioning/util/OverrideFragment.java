@@ -0,0 +1,49 @@
+package com.voxloud.provisioning.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable, pre-parsed view of a device override fragment.
+ * <p>
+ * Instances remember the raw fragment they were parsed from and the keys that were extracted from
+ * it, so a cached view can be checked against the current device row and discarded as soon as the
+ * fragment, or the set of keys its device's template reads, changes.
+ */
+public final class OverrideFragment {
+    public static final OverrideFragment EMPTY = new OverrideFragment(null, null, Collections.emptyMap());
+
+    private final String source;
+    private final int sourceHash;
+    private final Set<String> keys;
+    private final Map<String, String> values;
+
+    OverrideFragment(String source, Set<String> keys, Map<String, String> values) {
+        this.source = source;
+        this.sourceHash = Objects.hashCode(source);
+        this.keys = keys;
+        this.values = Collections.unmodifiableMap(values);
+    }
+
+    public String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+
+    public Map<String, String> asMap() {
+        return values;
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Whether this view was extracted from {@code fragment} for {@code keys}; key sets are compared
+     * by identity, as each template hands out a single instance.
+     */
+    boolean isParsedFrom(String fragment, Set<String> keys) {
+        return this.keys == keys && sourceHash == Objects.hashCode(fragment) && Objects.equals(source, fragment);
+    }
+}
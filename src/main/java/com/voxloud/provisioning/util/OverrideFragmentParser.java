@@ -1,57 +1,264 @@
 package com.voxloud.provisioning.util;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
 import com.voxloud.provisioning.exception.OverrideFragmentException;
-import lombok.RequiredArgsConstructor;
+import com.voxloud.provisioning.metrics.ProvisioningMetrics;
 
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
 
-@RequiredArgsConstructor
+/**
+ * Parses device override fragments, either JSON objects or {@code key=value} lines.
+ * <p>
+ * Both formats are read in a single pass: JSON through Jackson's streaming parser, properties
+ * directly over the characters of the fragment. When the caller names the keys it needs, only those
+ * are extracted and no string is allocated for any other entry. Comments ({@code #} and {@code !}
+ * lines in properties; {@code #}, {@code //} and block comments in JSON), CRLF line endings and
+ * duplicate keys (the last one wins) are accepted. Syntax errors are reported with their line and
+ * column.
+ * <p>
+ * Devices written since fragments are validated carry a {@link CompiledOverrides compiled} copy of
+ * their fragment; it is decoded instead of parsing the text.
+ */
 public class OverrideFragmentParser {
-    private final ObjectMapper objectMapper;
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_JAVA_COMMENTS)
+            .enable(JsonReadFeature.ALLOW_YAML_COMMENTS)
+            .build();
+
+    private static final long DEFAULT_CACHE_SIZE = 10_000;
+
+    private final ProvisioningMetrics metrics;
+
+    /**
+     * Parsed fragments keyed by MAC address, bounded like the rendered file cache. An entry is only
+     * reused while the device still carries the exact fragment it was parsed from, so an edited row
+     * is re-parsed on its next lookup.
+     */
+    private final Cache<MacAddress, OverrideFragment> cache;
+
+    public OverrideFragmentParser() {
+        this(ProvisioningMetrics.noop(), DEFAULT_CACHE_SIZE);
+    }
+
+    public OverrideFragmentParser(ProvisioningMetrics metrics, long cacheSize) {
+        this.metrics = metrics;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
 
     public String getOverrideValue(Device device, String key, String defaultValue) {
-        Map<String, String> overrides = parseOverrideFragment(device);
-        return overrides.getOrDefault(key, defaultValue);
+        return getOverrides(device).get(key, defaultValue);
     }
 
     public Map<String, String> parseOverrideFragment(Device device) {
-        return Optional.ofNullable(device.getOverrideFragment())
-                .filter(overrideFragment -> !overrideFragment.isEmpty())
-                .map(this::parseFragment)
-                .orElseGet(HashMap::new);
+        return getOverrides(device).asMap();
+    }
+
+    /**
+     * All entries of the device's override fragment.
+     */
+    public OverrideFragment getOverrides(Device device) {
+        return getOverrides(device, null);
     }
 
-    private Map<String, String> parseFragment(String overrideFragment) {
-        if (overrideFragment.trim().startsWith("{")) {
-            return parseJson(overrideFragment);
-        } else {
-            return parseProperties(overrideFragment);
+    /**
+     * The entries of the device's override fragment whose key is in {@code keys}, or all entries
+     * when {@code keys} is {@code null}. The result is cached per device for the same key set
+     * instance, so callers should pass a set they keep, such as a template's setting names.
+     */
+    public OverrideFragment getOverrides(Device device, Set<String> keys) {
+        MacAddress macAddress = device.getMacAddress();
+        String overrideFragment = device.getOverrideFragment();
+        if (overrideFragment == null || overrideFragment.isEmpty()) {
+            if (macAddress != null) {
+                cache.invalidate(macAddress);
+            }
+            return OverrideFragment.EMPTY;
+        }
+        if (macAddress == null) {
+            return readFragment(device, keys);
+        }
+
+        OverrideFragment cached = cache.getIfPresent(macAddress);
+        if (cached != null && cached.isParsedFrom(overrideFragment, keys)) {
+            return cached;
         }
+        OverrideFragment parsed = readFragment(device, keys);
+        cache.put(macAddress, parsed);
+        return parsed;
     }
 
-    private Map<String, String> parseJson(String json) {
+    public void evict(MacAddress macAddress) {
+        cache.invalidate(macAddress);
+    }
+
+    /**
+     * All entries of {@code overrideFragment}, parsed from its text without caching. Used to compile
+     * a fragment when a device is written.
+     */
+    public Map<String, String> parse(Device.DeviceModel model, String overrideFragment) {
+        return parseFragment(model, overrideFragment, null).asMap();
+    }
+
+    private OverrideFragment readFragment(Device device, Set<String> keys) {
+        byte[] compiled = device.getOverrideCompiled();
+        Map<String, String> values = compiled != null ? CompiledOverrides.decode(compiled) : null;
+        if (values == null) {
+            return parseFragment(device.getModel(), device.getOverrideFragment(), keys);
+        }
+        if (keys != null) {
+            values.keySet().retainAll(keys);
+        }
+        return new OverrideFragment(device.getOverrideFragment(), keys, values);
+    }
+
+    private OverrideFragment parseFragment(Device.DeviceModel model, String overrideFragment, Set<String> keys) {
+        OverrideFormat format = OverrideFormat.of(overrideFragment);
+        long start = System.nanoTime();
         try {
-            return objectMapper.readValue(json, new TypeReference<Map<String, String>>() {});
+            Map<String, String> values = format == OverrideFormat.JSON
+                    ? parseJson(overrideFragment, keys)
+                    : parseProperties(overrideFragment, keys);
+            metrics.recordParse(model, format, start);
+            return new OverrideFragment(overrideFragment, keys, values);
+        } catch (RuntimeException e) {
+            metrics.parseError();
+            throw e;
+        }
+    }
+
+    private static Map<String, String> parseJson(String json, Set<String> keys) {
+        Map<String, String> values = new HashMap<>();
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw jsonError("Expected a JSON object", parser.currentTokenLocation(), null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = wantedKey(parser.currentName(), keys);
+                JsonToken value = parser.nextToken();
+                if (key == null) {
+                    parser.skipChildren();
+                } else if (value.isScalarValue()) {
+                    if (value != JsonToken.VALUE_NULL) {
+                        values.put(key, parser.getText());
+                    }
+                } else {
+                    throw jsonError("Expected a plain value for \"" + key + "\"", parser.currentTokenLocation(), null);
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT) {
+                throw jsonError("Expected a field name", parser.currentTokenLocation(), null);
+            }
+            if (parser.nextToken() != null) {
+                throw jsonError("Unexpected content after the JSON object", parser.currentTokenLocation(), null);
+            }
         } catch (JsonProcessingException e) {
-            throw new OverrideFragmentException("Failed to parse overrideFragment as JSON: " + json, e);
+            throw jsonError(e.getOriginalMessage(), e.getLocation(), e);
+        } catch (IOException e) {
+            throw new OverrideFragmentException("Failed to parse overrideFragment as JSON", e);
         }
+        return values;
     }
 
-    private Map<String, String> parseProperties(String properties) {
-        return Arrays.stream(properties.split("\n"))
-                .map(line -> line.split("=", 2))
-                .filter(parts -> parts.length == 2)
-                .collect(Collectors.toMap(
-                        parts -> parts[0].trim(),
-                        parts -> parts[1].trim()
-                ));
+    private static String wantedKey(String key, Set<String> keys) {
+        return keys == null || keys.contains(key) ? key : null;
+    }
+
+    private static OverrideFragmentException jsonError(String message, JsonLocation location, Throwable cause) {
+        if (location == null) {
+            return new OverrideFragmentException("Failed to parse overrideFragment as JSON: " + message, cause);
+        }
+        return new OverrideFragmentException("Failed to parse overrideFragment as JSON: " + message,
+                location.getLineNr(), location.getColumnNr(), cause);
+    }
+
+    private static Map<String, String> parseProperties(String properties, Set<String> keys) {
+        Map<String, String> values = new HashMap<>();
+        int length = properties.length();
+        int lineStart = 0;
+        for (int line = 1; lineStart < length; line++) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && properties.charAt(lineEnd) != '\n' && properties.charAt(lineEnd) != '\r') {
+                lineEnd++;
+            }
+            parsePropertyLine(properties, lineStart, lineEnd, line, keys, values);
+
+            lineStart = lineEnd + 1;
+            if (lineEnd + 1 < length && properties.charAt(lineEnd) == '\r' && properties.charAt(lineEnd + 1) == '\n') {
+                lineStart++;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Parses one {@code key=value} line. Blank lines, comments and lines without {@code =} carry no
+     * entry; whitespace around keys and values is ignored.
+     */
+    private static void parsePropertyLine(String properties, int start, int end, int line, Set<String> keys,
+                                          Map<String, String> values) {
+        int keyStart = skipWhitespace(properties, start, end);
+        if (keyStart == end || properties.charAt(keyStart) == '#' || properties.charAt(keyStart) == '!') {
+            return;
+        }
+        int separator = properties.indexOf('=', keyStart);
+        if (separator < 0 || separator >= end) {
+            return;
+        }
+        int keyEnd = trimEnd(properties, keyStart, separator);
+        if (keyEnd == keyStart) {
+            throw new OverrideFragmentException("Failed to parse overrideFragment as properties: missing key",
+                    line, separator - start + 1, null);
+        }
+        String key = propertyKey(properties, keyStart, keyEnd, keys);
+        if (key != null) {
+            int valueStart = skipWhitespace(properties, separator + 1, end);
+            values.put(key, properties.substring(valueStart, trimEnd(properties, valueStart, end)));
+        }
+    }
+
+    /**
+     * The key between {@code start} and {@code end} if it is wanted. Wanted keys are matched in
+     * place and returned as the caller's own instance, so unwanted and wanted keys alike cost no
+     * allocation.
+     */
+    private static String propertyKey(String properties, int start, int end, Set<String> keys) {
+        if (keys == null) {
+            return properties.substring(start, end);
+        }
+        int length = end - start;
+        for (String key : keys) {
+            if (key.length() == length && properties.regionMatches(start, key, 0, length)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    private static int skipWhitespace(String text, int from, int to) {
+        while (from < to && text.charAt(from) <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(String text, int from, int to) {
+        while (to > from && text.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return to;
     }
 }
@@ -0,0 +1,61 @@
+package com.voxloud.provisioning.util;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.exception.OverrideFragmentException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Rules an override fragment must satisfy before it is stored: only keys the device model's
+ * template reads, a valid SIP port, a numeric timeout, and no control characters in any value,
+ * which would otherwise break the line structure of the rendered file.
+ */
+public final class OverrideSchema {
+    private static final int MAX_PORT = 65535;
+
+    private OverrideSchema() {
+    }
+
+    /**
+     * Checks {@code values} against the schema of {@code model}. {@code allowedKeys} may be {@code
+     * null} for models that accept any key.
+     */
+    public static void validate(Device.DeviceModel model, Set<String> allowedKeys, Map<String, String> values) {
+        for (var entry : values.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (allowedKeys != null && !allowedKeys.contains(key)) {
+                throw invalid(model, "unknown key \"" + key + "\", expected one of " + new TreeSet<>(allowedKeys));
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (Character.isISOControl(value.charAt(i))) {
+                    throw invalid(model, "\"" + key + "\" contains a control character");
+                }
+            }
+            switch (key) {
+                case "port" -> requireInteger(model, key, value, 1, MAX_PORT);
+                case "timeout" -> requireInteger(model, key, value, 0, Integer.MAX_VALUE);
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static void requireInteger(Device.DeviceModel model, String key, String value, long min, long max) {
+        long number;
+        try {
+            number = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw invalid(model, "\"" + key + "\" must be a number, got \"" + value + "\"");
+        }
+        if (number < min || number > max) {
+            throw invalid(model, "\"" + key + "\" must be between " + min + " and " + max + ", got " + number);
+        }
+    }
+
+    private static OverrideFragmentException invalid(Device.DeviceModel model, String reason) {
+        return new OverrideFragmentException("Invalid override fragment for model " + model + ": " + reason, null);
+    }
+}
@@ -0,0 +1,61 @@
+package com.voxloud.provisioning.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the call, callers arriving
+ * while it is in flight wait for it and receive the same result or exception.
+ * <p>
+ * Calls in flight are tracked in a {@link ConcurrentHashMap}, which locks per hash bin, so callers
+ * for unrelated keys do not contend. A key is forgotten as soon as its call completes; nothing is
+ * cached beyond the call itself.
+ */
+public final class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Runs {@code call} for {@code key} unless a call for the same key is already in flight, in
+     * which case its outcome is shared. {@code onShared} runs when this caller did not run the call.
+     */
+    public V execute(K key, Supplier<V> call, Runnable onShared) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = calls.putIfAbsent(key, own);
+        if (inFlight != null) {
+            onShared.run();
+            return await(inFlight);
+        }
+
+        V value;
+        try {
+            value = call.get();
+        } catch (Throwable e) {
+            calls.remove(key, own);
+            own.completeExceptionally(e);
+            throw e;
+        }
+        // Removed before completing, so a caller arriving from now on starts a fresh call rather
+        // than receiving a result that may predate its request.
+        calls.remove(key, own);
+        own.complete(value);
+        return value;
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
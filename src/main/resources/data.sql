@@ -1,13 +1,29 @@
 CREATE TABLE device (
-  mac_address VARCHAR(255) NOT NULL,
+  mac_address BIGINT NOT NULL,
    model VARCHAR(255) NOT NULL,
    override_fragment VARCHAR(255),
+   override_compiled VARBINARY(1024),
    username VARCHAR(255),
    password VARCHAR(255),
+   group_name VARCHAR(255),
+   version BIGINT DEFAULT 0 NOT NULL,
+   updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
    CONSTRAINT pk_device PRIMARY KEY (mac_address)
 );
 
-INSERT INTO device (mac_address, model, username, password, override_fragment) VALUES ('aa-bb-cc-dd-ee-ff', 'DESK', 'john', 'doe', null);
-INSERT INTO device (mac_address, model, username, password, override_fragment) VALUES ('f1-e2-d3-c4-b5-a6', 'CONFERENCE', 'sofia', 'red', null);
-INSERT INTO device (mac_address, model, username, password, override_fragment) VALUES ('a1-b2-c3-d4-e5-f6', 'DESK', 'walter', 'white', STRINGDECODE('domain=sip.anotherdomain.com\nport=5161\ntimeout=10'));
-INSERT INTO device (mac_address, model, username, password, override_fragment) VALUES ('1a-2b-3c-4d-5e-6f', 'CONFERENCE', 'eric', 'blue', '{"domain":"sip.anotherdomain.com","port":"5161","timeout":10}');
+CREATE INDEX idx_device_updated_at ON device (updated_at);
+
+CREATE TABLE device_invalidation (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+   mac_address BIGINT,
+   origin VARCHAR(64) NOT NULL,
+   created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+   CONSTRAINT pk_device_invalidation PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_device_invalidation_created_at ON device_invalidation (created_at);
+
+INSERT INTO device (mac_address, model, username, password, override_fragment) VALUES (0xaabbccddeeff, 'DESK', 'john', 'doe', null);
+INSERT INTO device (mac_address, model, username, password, override_fragment) VALUES (0xf1e2d3c4b5a6, 'CONFERENCE', 'sofia', 'red', null);
+INSERT INTO device (mac_address, model, username, password, override_fragment) VALUES (0xa1b2c3d4e5f6, 'DESK', 'walter', 'white', STRINGDECODE('domain=sip.anotherdomain.com\nport=5161\ntimeout=10'));
+INSERT INTO device (mac_address, model, username, password, override_fragment) VALUES (0x1a2b3c4d5e6f, 'CONFERENCE', 'eric', 'blue', '{"domain":"sip.anotherdomain.com","port":"5161","timeout":10}');
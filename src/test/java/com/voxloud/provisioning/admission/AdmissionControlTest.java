@@ -0,0 +1,111 @@
+package com.voxloud.provisioning.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class AdmissionControlTest {
+    private static final MacAddress PHONE = MacAddress.parse("aa-bb-cc-dd-ee-ff");
+    private static final MacAddress OTHER_PHONE = MacAddress.parse("aa-bb-cc-dd-ee-00");
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdmissionControl admissionControl(AdmissionProperties properties) {
+        return new AdmissionControl(properties, meterRegistry, clock::get);
+    }
+
+    private static AdmissionProperties properties() {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setPerMac(new AdmissionProperties.Bucket(2, Duration.ofSeconds(10)));
+        properties.setPerSubnet(new AdmissionProperties.Bucket(3, Duration.ofSeconds(1)));
+        properties.setMaxConcurrent(1);
+        properties.setMaxQueued(1);
+        properties.setMaxQueueWait(Duration.ofSeconds(5));
+        return properties;
+    }
+
+    @DisplayName("Should allow a burst per MAC address and refill it over time")
+    @Test
+    void testMacRateLimit() {
+        AdmissionControl admissionControl = admissionControl(properties());
+
+        assertThat(admissionControl.checkRate(PHONE, null)).isEqualTo(AdmissionControl.Outcome.ADMITTED);
+        assertThat(admissionControl.checkRate(PHONE, null)).isEqualTo(AdmissionControl.Outcome.ADMITTED);
+        assertThat(admissionControl.checkRate(PHONE, null)).isEqualTo(AdmissionControl.Outcome.MAC_RATE);
+        assertThat(admissionControl.checkRate(OTHER_PHONE, null)).isEqualTo(AdmissionControl.Outcome.ADMITTED);
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThat(admissionControl.checkRate(PHONE, null)).isEqualTo(AdmissionControl.Outcome.ADMITTED);
+        assertThat(admissionControl.checkRate(PHONE, null)).isEqualTo(AdmissionControl.Outcome.MAC_RATE);
+        assertThat(meterRegistry.get("provisioning.admission.rejected").tag("reason", "mac_rate").counter().count())
+                .isEqualTo(2);
+    }
+
+    @DisplayName("Should share one bucket between the addresses of a subnet")
+    @Test
+    void testSubnetRateLimit() throws Exception {
+        AdmissionControl admissionControl = admissionControl(properties());
+
+        for (int host = 1; host <= 3; host++) {
+            assertThat(admissionControl.checkRate(null, InetAddress.getByName("10.0.0." + host)))
+                    .isEqualTo(AdmissionControl.Outcome.ADMITTED);
+        }
+        assertThat(admissionControl.checkRate(null, InetAddress.getByName("10.0.0.200")))
+                .isEqualTo(AdmissionControl.Outcome.SUBNET_RATE);
+        assertThat(admissionControl.checkRate(null, InetAddress.getByName("10.0.1.1")))
+                .isEqualTo(AdmissionControl.Outcome.ADMITTED);
+        assertThat(admissionControl.checkRate(null, InetAddress.getByName("2001:db8::1")))
+                .isEqualTo(AdmissionControl.Outcome.ADMITTED);
+    }
+
+    @DisplayName("Should queue a bounded number of requests for a processing slot")
+    @Test
+    void testConcurrencyLimit() throws Exception {
+        AdmissionControl admissionControl = admissionControl(properties());
+        assertThat(admissionControl.acquire()).isEqualTo(AdmissionControl.Outcome.ADMITTED);
+
+        AtomicReference<AdmissionControl.Outcome> queued = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                queued.set(admissionControl.acquire());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        waiter.start();
+        while (admissionControl.queued() == 0) {
+            Thread.onSpinWait();
+        }
+
+        assertThat(admissionControl.acquire()).isEqualTo(AdmissionControl.Outcome.CONCURRENCY);
+
+        admissionControl.release();
+        done.await();
+        assertThat(queued.get()).isEqualTo(AdmissionControl.Outcome.ADMITTED);
+        assertThat(admissionControl.inFlight()).isEqualTo(1);
+        assertThat(meterRegistry.get("provisioning.admission.queued").gauge().value()).isZero();
+    }
+
+    @DisplayName("Should parse literal addresses only")
+    @Test
+    void testParseAddress() {
+        assertThat(AdmissionControl.parseAddress("192.168.1.20").getHostAddress()).isEqualTo("192.168.1.20");
+        assertThat(AdmissionControl.parseAddress("0:0:0:0:0:0:0:1").isLoopbackAddress()).isTrue();
+        assertThat(AdmissionControl.parseAddress("192.168.1")).isNull();
+        assertThat(AdmissionControl.parseAddress("192.168.1.256")).isNull();
+        assertThat(AdmissionControl.parseAddress("localhost")).isNull();
+    }
+}
@@ -0,0 +1,105 @@
+package com.voxloud.provisioning.admission;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.voxloud.provisioning.controller.ProvisioningController;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.service.ConfigVersion;
+import com.voxloud.provisioning.service.ProvisioningService;
+import com.voxloud.provisioning.service.RenderedConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+@WebMvcTest(value = ProvisioningController.class, properties = {
+        "provisioning.admission.per-mac.capacity=2",
+        "provisioning.admission.per-mac.refill-interval=1h",
+        "provisioning.admission.per-subnet.capacity=4",
+        "provisioning.admission.per-subnet.refill-interval=1h",
+        "provisioning.admission.retry-after=10s",
+        "provisioning.admission.retry-after-jitter=5s"
+})
+@Import({AdmissionConfig.class, AdmissionFilterTest.Metrics.class})
+@ImportAutoConfiguration(ServletWebServerFactoryAutoConfiguration.class)
+class AdmissionFilterTest {
+    private static final String MAC_ADDRESS = "aa-bb-cc-11-22-33";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ProvisioningService provisioningService;
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @DisplayName("Should shed requests over the per-MAC limit with a jittered Retry-After and no lookup")
+    @Test
+    void testRejectsOverLimit() throws Exception {
+        RenderedConfig config = new RenderedConfig(Device.DeviceModel.DESK, "text/plain;charset=UTF-8",
+                "username=john".getBytes(StandardCharsets.UTF_8), new ConfigVersion("\"1\"", 1_700_000_000_000L));
+        when(provisioningService.getConfigVersion(any())).thenReturn(config.getVersion());
+        when(provisioningService.getRenderedConfig(any())).thenReturn(config);
+
+        mockMvc.perform(get("/api/v1/provisioning/" + MAC_ADDRESS)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/provisioning/AA:BB:CC:11:22:33")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/provisioning/" + MAC_ADDRESS))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", matchesPattern("1[0-5]")));
+
+        verify(provisioningService, times(2)).getRenderedConfig(MacAddress.parse(MAC_ADDRESS));
+        mockMvc.perform(get("/api/v1/provisioning/aa-bb-cc-11-22-44")).andExpect(status().isOk());
+    }
+
+    @DisplayName("Should key the subnet limit on the client address and ignore forwarded headers")
+    @Test
+    void testSubnetLimitIgnoresForwardedHeaders() throws Exception {
+        RenderedConfig config = new RenderedConfig(Device.DeviceModel.DESK, "text/plain;charset=UTF-8",
+                "username=john".getBytes(StandardCharsets.UTF_8), new ConfigVersion("\"1\"", 1_700_000_000_000L));
+        when(provisioningService.getRenderedConfig(any())).thenReturn(config);
+
+        for (int i = 1; i <= 4; i++) {
+            mockMvc.perform(get("/api/v1/provisioning/aa-bb-cc-00-00-0" + i).with(remoteAddress("198.51.100." + i))
+                    .header("X-Forwarded-For", "192.0.2." + i)).andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/v1/provisioning/aa-bb-cc-00-00-05").with(remoteAddress("198.51.100.5"))
+                        .header("X-Forwarded-For", "203.0.113.5"))
+                .andExpect(status().isServiceUnavailable());
+        mockMvc.perform(get("/api/v1/provisioning/aa-bb-cc-00-00-06").with(remoteAddress("203.0.113.6")))
+                .andExpect(status().isOk());
+    }
+
+    private static RequestPostProcessor remoteAddress(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.voxloud.provisioning.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.voxloud.provisioning.cache.DeviceMembershipFilter.Membership;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.repository.DeviceRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+
+class DeviceMembershipFilterTest {
+    private static final MacAddress KNOWN = MacAddress.parse("aa-bb-cc-00-00-01");
+    private static final MacAddress UNKNOWN = MacAddress.parse("aa-bb-cc-00-00-02");
+
+    private DeviceRepository deviceRepository;
+    private DeviceMembershipFilter deviceMembershipFilter;
+    private Counter falsePositives;
+
+    @BeforeEach
+    void setUp() {
+        deviceRepository = mock(DeviceRepository.class);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        deviceMembershipFilter = new DeviceMembershipFilter(deviceRepository, mock(TaskScheduler.class),
+                meterRegistry, true, 1000, 0.01, Duration.ofSeconds(5), Duration.ofHours(1),
+                1000, Duration.ofMinutes(5));
+        falsePositives = meterRegistry.get("provisioning.membership.false.positives").counter();
+    }
+
+    @DisplayName("Misses checked before the filter was built are not counted as false positives")
+    @Test
+    public void testRecordMissing_Unfiltered() {
+        Membership checked = deviceMembershipFilter.check(UNKNOWN);
+        long stamp = deviceMembershipFilter.stamp();
+        build(KNOWN);
+
+        deviceMembershipFilter.recordMissing(UNKNOWN, checked, stamp);
+
+        assertThat(checked).isEqualTo(Membership.UNFILTERED);
+        assertThat(falsePositives.count()).isZero();
+        assertThat(deviceMembershipFilter.check(UNKNOWN)).isEqualTo(Membership.ABSENT);
+    }
+
+    @DisplayName("Misses the filter let through are counted as false positives")
+    @Test
+    public void testRecordMissing_FalsePositive() {
+        build(KNOWN, UNKNOWN);
+        Membership checked = deviceMembershipFilter.check(UNKNOWN);
+
+        deviceMembershipFilter.recordMissing(UNKNOWN, checked, deviceMembershipFilter.stamp());
+
+        assertThat(checked).isEqualTo(Membership.POSSIBLE);
+        assertThat(falsePositives.count()).isEqualTo(1);
+        assertThat(deviceMembershipFilter.check(UNKNOWN)).isEqualTo(Membership.ABSENT);
+    }
+
+    private void build(MacAddress... macAddresses) {
+        when(deviceRepository.count()).thenReturn((long) macAddresses.length);
+        when(deviceRepository.findMacAddressesFrom(any(), any())).thenReturn(List.of(macAddresses));
+        deviceMembershipFilter.rebuild();
+    }
+}
@@ -0,0 +1,93 @@
+package com.voxloud.provisioning.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.repository.DeviceRepository;
+import com.voxloud.provisioning.service.ProvisioningService;
+import com.voxloud.provisioning.service.RenderedConfig;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:snapshot-test",
+        "provisioning.snapshot.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RenderedConfigSnapshotTest {
+    private static final MacAddress MAC_ADDRESS = MacAddress.parse("5a-00-00-00-00-01");
+
+    @Autowired
+    private RenderedConfigSnapshot snapshot;
+
+    @Autowired
+    private RenderedConfigCache renderedConfigCache;
+
+    @Autowired
+    private ProvisioningService provisioningService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void snapshotLocation(DynamicPropertyRegistry registry) throws IOException {
+        Path directory = Files.createTempDirectory("snapshot-test");
+        registry.add("provisioning.snapshot.location", () -> directory.resolve("rendered-configs.bin").toString());
+    }
+
+    @DisplayName("Test current files are restored from the snapshot, stale and deleted ones are not")
+    @Test
+    public void testRestoresOnlyCurrentFiles() {
+        Device device = new Device();
+        device.setMacAddress(MAC_ADDRESS);
+        device.setModel(Device.DeviceModel.CONFERENCE);
+        device.setUsername("snap");
+        device.setPassword("shot");
+        deviceRepository.save(device);
+        RenderedConfig rendered = provisioningService.getRenderedConfig(MAC_ADDRESS);
+        snapshot.write();
+        renderedConfigCache.invalidateAll();
+        Counter hits = meterRegistry.get("provisioning.snapshot.restores").tag("outcome", "hit").counter();
+        Counter stale = meterRegistry.get("provisioning.snapshot.restores").tag("outcome", "stale").counter();
+        double hitCount = hits.count();
+        double staleCount = stale.count();
+
+        RenderedConfig restored = provisioningService.getRenderedConfig(MAC_ADDRESS);
+
+        assertThat(snapshot.contains(MAC_ADDRESS)).isTrue();
+        assertThat(hits.count()).isEqualTo(hitCount + 1);
+        assertThat(restored.getContent()).isEqualTo(rendered.getContent());
+        assertThat(restored.getGzipContent()).isEqualTo(rendered.getGzipContent());
+        assertThat(restored.getVersion()).isEqualTo(rendered.getVersion());
+        assertThat(restored.getContentType()).isEqualTo("application/json");
+        assertThat(provisioningService.getRenderedConfig(MAC_ADDRESS)).isSameAs(restored);
+
+        device = deviceRepository.findById(MAC_ADDRESS).orElseThrow();
+        device.setPassword("changed");
+        deviceRepository.save(device);
+
+        assertThat(provisioningService.getProvisioningFile(MAC_ADDRESS)).contains("changed");
+        assertThat(stale.count()).isEqualTo(staleCount + 1);
+        assertThat(hits.count()).isEqualTo(hitCount + 1);
+
+        deviceRepository.deleteById(MAC_ADDRESS);
+
+        assertThat(provisioningService.getRenderedConfig(MAC_ADDRESS)).isNull();
+    }
+}
@@ -0,0 +1,75 @@
+package com.voxloud.provisioning.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SnapshotFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Records written in MAC address order are found by binary search")
+    void roundTrip() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        try (SnapshotFile.Writer writer = new SnapshotFile.Writer(path)) {
+            for (long macAddress = 10; macAddress < 1000; macAddress += 10) {
+                byte[] gzip = macAddress % 20 == 0 ? new byte[]{0x1f, (byte) 0x8b} : null;
+                writer.append(macAddress, "\"" + macAddress + "\"", bytes("port=" + macAddress), gzip);
+            }
+            writer.commit();
+        }
+
+        SnapshotFile snapshot = SnapshotFile.open(path);
+        assertThat(snapshot.size()).isEqualTo(99);
+        SnapshotFile.Entry entry = snapshot.find(500);
+        assertThat(entry.getEtag()).isEqualTo("\"500\"");
+        assertThat(entry.getContent()).isEqualTo(bytes("port=500"));
+        assertThat(entry.getGzipContent()).containsExactly(0x1f, 0x8b);
+        assertThat(snapshot.find(990).getGzipContent()).isNull();
+        assertThat(snapshot.find(10).getContent()).isEqualTo(bytes("port=10"));
+        assertThat(snapshot.find(15)).isNull();
+        assertThat(snapshot.contains(1000)).isFalse();
+        assertThat(Files.getPosixFilePermissions(path)).isEqualTo(PosixFilePermissions.fromString("rw-------"));
+    }
+
+    @Test
+    @DisplayName("An uncommitted writer leaves the previous snapshot in place")
+    void uncommitted() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        try (SnapshotFile.Writer writer = new SnapshotFile.Writer(path)) {
+            writer.append(1, "\"1\"", bytes("a"), null);
+            writer.commit();
+        }
+        try (SnapshotFile.Writer writer = new SnapshotFile.Writer(path)) {
+            writer.append(2, "\"2\"", bytes("b"), null);
+        }
+
+        assertThat(SnapshotFile.open(path).contains(1)).isTrue();
+        try (var files = Files.list(directory)) {
+            assertThat(files).containsExactly(path);
+        }
+    }
+
+    @Test
+    @DisplayName("Files that are not complete snapshots are rejected")
+    void corrupt() throws IOException {
+        Path path = directory.resolve("snapshot.bin");
+        Files.write(path, bytes("not a snapshot, just some text of sufficient length"));
+
+        assertThatThrownBy(() -> SnapshotFile.open(path)).isInstanceOf(IOException.class);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -3,10 +3,18 @@ package com.voxloud.provisioning.controller;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import com.voxloud.provisioning.exception.DeviceNotFoundException;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.exception.UnsupportedDeviceModelException;
+import com.voxloud.provisioning.service.ConfigVersion;
 import com.voxloud.provisioning.service.ProvisioningService;
+import com.voxloud.provisioning.service.RenderedConfig;
+import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,22 +27,45 @@ class ProvisioningControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    private static final String ETAG = "\"5f3c\"";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
     @MockBean
     private ProvisioningService provisioningService;
 
+    private static RenderedConfig renderedConfig(String content) {
+        return new RenderedConfig(Device.DeviceModel.DESK, "text/plain;charset=UTF-8",
+                content.getBytes(StandardCharsets.UTF_8),
+                new ConfigVersion(ETAG, LAST_MODIFIED));
+    }
+
     @DisplayName("Test provisioning device - device not found")
     @Test
     public void testProvisionDevice_DeviceNotFound() throws Exception {
         String macAddress = "aa-bb-cc-11-22-33";
 
-        when(provisioningService.getProvisioningFile(macAddress))
-                .thenThrow(new DeviceNotFoundException("Device not found!"));
+        when(provisioningService.getRenderedConfig(MacAddress.parse(macAddress)))
+                .thenReturn(null);
 
         mockMvc.perform(get("/api/v1/provisioning/{macAddress}", macAddress))
                 .andExpect(status().isNotFound())
                 .andExpect(content().string("Device not found!"));
     }
 
+    @DisplayName("Test provisioning device - conditional request for unknown device is answered from the version lookup")
+    @Test
+    public void testProvisionDevice_ConditionalDeviceNotFound() throws Exception {
+        String macAddress = "aa-bb-cc-11-22-33";
+
+        when(provisioningService.getConfigVersion(MacAddress.parse(macAddress)))
+                .thenReturn(null);
+
+        mockMvc.perform(get("/api/v1/provisioning/{macAddress}", macAddress).header("If-None-Match", ETAG))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Device not found!"));
+        verify(provisioningService, never()).getRenderedConfig(MacAddress.parse(macAddress));
+    }
+
     @DisplayName("Test provisioning device - invalid MAC address")
     @Test
     public void testProvisionDevice_InvalidMacAddress() throws Exception {
@@ -62,11 +93,87 @@ class ProvisioningControllerTest {
         String macAddress = "aa-bb-cc-11-22-33";
         String expectedResponse = "Provisioning file for device";
 
-        when(provisioningService.getProvisioningFile(macAddress)).thenReturn(expectedResponse);
+        when(provisioningService.getRenderedConfig(MacAddress.parse(macAddress))).thenReturn(renderedConfig(expectedResponse));
 
         mockMvc.perform(get("/api/v1/provisioning/{macAddress}", macAddress))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETAG))
+                .andExpect(header().string("Content-Type", "text/plain;charset=UTF-8"))
+                .andExpect(header().longValue("Content-Length", expectedResponse.length()))
                 .andExpect(content().string(expectedResponse));
+        verify(provisioningService, never()).getConfigVersion(MacAddress.parse(macAddress));
+    }
+
+    @Test
+    @DisplayName("Test provisioning device - matching If-None-Match returns 304 without rendering")
+    public void testProvisionDevice_NotModified() throws Exception {
+        String macAddress = "aa-bb-cc-11-22-33";
+
+        when(provisioningService.getConfigVersion(MacAddress.parse(macAddress))).thenReturn(new ConfigVersion(ETAG, LAST_MODIFIED));
+
+        mockMvc.perform(get("/api/v1/provisioning/{macAddress}", macAddress).header("If-None-Match", ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", ETAG))
+                .andExpect(content().string(""));
+        verify(provisioningService, never()).getRenderedConfig(MacAddress.parse(macAddress));
+    }
+
+    @Test
+    @DisplayName("Test provisioning device - stale If-None-Match returns the full file")
+    public void testProvisionDevice_Modified() throws Exception {
+        String macAddress = "aa-bb-cc-11-22-33";
+        String expectedResponse = "Provisioning file for device";
+
+        when(provisioningService.getConfigVersion(MacAddress.parse(macAddress))).thenReturn(new ConfigVersion(ETAG, LAST_MODIFIED));
+        when(provisioningService.getRenderedConfig(MacAddress.parse(macAddress))).thenReturn(renderedConfig(expectedResponse));
+
+        mockMvc.perform(get("/api/v1/provisioning/{macAddress}", macAddress).header("If-None-Match", "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues("ETag", ETAG))
+                .andExpect(content().string(expectedResponse));
+    }
+
+    @Test
+    @DisplayName("Test provisioning device - gzip variant served to clients accepting gzip")
+    public void testProvisionDevice_Gzip() throws Exception {
+        String macAddress = "aa-bb-cc-11-22-33";
+        byte[] gzip = {0x1f, (byte) 0x8b, 8, 0};
+
+        when(provisioningService.getConfigVersion(MacAddress.parse(macAddress))).thenReturn(new ConfigVersion(ETAG, LAST_MODIFIED));
+        when(provisioningService.getRenderedConfig(MacAddress.parse(macAddress))).thenReturn(new RenderedConfig(
+                Device.DeviceModel.CONFERENCE, "application/json", "{}".getBytes(StandardCharsets.UTF_8), gzip,
+                new ConfigVersion(ETAG, LAST_MODIFIED)));
+
+        mockMvc.perform(get("/api/v1/provisioning/{macAddress}", macAddress).header("Accept-Encoding", "br, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().string("ETag", "\"5f3c-gzip\""))
+                .andExpect(header().longValue("Content-Length", gzip.length))
+                .andExpect(content().bytes(gzip));
+
+        mockMvc.perform(get("/api/v1/provisioning/{macAddress}", macAddress).header("Accept-Encoding", "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().string("ETag", ETAG))
+                .andExpect(content().string("{}"));
+    }
+
+    @Test
+    @DisplayName("Test provisioning device - If-None-Match is matched against the negotiated variant")
+    public void testProvisionDevice_GzipNotModified() throws Exception {
+        String macAddress = "aa-bb-cc-11-22-33";
+
+        when(provisioningService.getConfigVersion(MacAddress.parse(macAddress))).thenReturn(new ConfigVersion(ETAG, LAST_MODIFIED));
+
+        mockMvc.perform(get("/api/v1/provisioning/{macAddress}", macAddress)
+                        .header("Accept-Encoding", "gzip")
+                        .header("If-None-Match", "\"5f3c-gzip\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(header().string("ETag", "\"5f3c-gzip\""));
+        verify(provisioningService, never()).getRenderedConfig(MacAddress.parse(macAddress));
     }
 
     @Test
@@ -87,4 +194,32 @@ class ProvisioningControllerTest {
                 .andExpect(content().string("An unexpected error occurred: "
                         + "No static resource api/v1/provisioning."));
     }
+
+    @DisplayName("Test provisioning device - unsupported device model")
+    @Test
+    public void testProvisionDevice_UnsupportedModel() throws Exception {
+        String macAddress = "aa-bb-cc-11-22-33";
+
+        when(provisioningService.getRenderedConfig(MacAddress.parse(macAddress)))
+                .thenThrow(new UnsupportedDeviceModelException("Unsupported device model: DESK"));
+
+        mockMvc.perform(get("/api/v1/provisioning/{macAddress}", macAddress))
+                .andExpect(status().isNotImplemented())
+                .andExpect(content().string("Unsupported device model: DESK"));
+    }
+
+    @DisplayName("Test provisioning device - any MAC address notation resolves to the same device")
+    @Test
+    public void testProvisionDevice_MacAddressNotations() throws Exception {
+        String expectedResponse = "Provisioning file for device";
+
+        when(provisioningService.getRenderedConfig(MacAddress.parse("aa-bb-cc-11-22-33")))
+                .thenReturn(renderedConfig(expectedResponse));
+
+        for (String notation : new String[]{"AA-BB-CC-11-22-33", "aa:bb:cc:11:22:33", "aabbcc112233"}) {
+            mockMvc.perform(get("/api/v1/provisioning/{macAddress}", notation))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(expectedResponse));
+        }
+    }
 }
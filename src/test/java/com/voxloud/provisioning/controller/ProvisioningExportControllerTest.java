@@ -0,0 +1,66 @@
+package com.voxloud.provisioning.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.nio.charset.StandardCharsets;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:export-controller-test",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "provisioning.membership.enabled=false",
+        "provisioning.export.page-size=1",
+        "provisioning.export.timeout=90s"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProvisioningExportControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @DisplayName("Test export streams every page from its own closed persistence context under its own timeout")
+    @Test
+    public void testExportAll_PagesDetachedWithExportTimeout() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long opened = statistics.getSessionOpenCount();
+        long closed = statistics.getSessionCloseCount();
+
+        MvcResult result = mockMvc.perform(get("/api/v1/provisioning/export").param("model", "CONFERENCE"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(90_000L);
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+
+        String[] records = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(records).hasSizeGreaterThanOrEqualTo(2);
+        assertThat(statistics.getSessionOpenCount() - opened).isGreaterThan(records.length);
+        assertThat(statistics.getSessionCloseCount() - closed).isEqualTo(statistics.getSessionOpenCount() - opened);
+        assertThat(applicationContext.getBeansOfType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+    }
+}
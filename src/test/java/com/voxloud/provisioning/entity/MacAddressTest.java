@@ -0,0 +1,44 @@
+package com.voxloud.provisioning.entity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class MacAddressTest {
+    @DisplayName("Test all common notations parse to the same address")
+    @Test
+    public void testParseCommonNotations() {
+        MacAddress canonical = MacAddress.parse("1a-2b-3c-4d-5e-6f");
+
+        assertThat(canonical.toLong()).isEqualTo(0x1a2b3c4d5e6fL);
+        assertThat(MacAddress.parse("1A-2B-3C-4D-5E-6F")).isEqualTo(canonical);
+        assertThat(MacAddress.parse("1a:2b:3c:4d:5e:6f")).isEqualTo(canonical);
+        assertThat(MacAddress.parse("1a2b.3c4d.5e6f")).isEqualTo(canonical);
+        assertThat(MacAddress.parse("1A2B3C4D5E6F")).isEqualTo(canonical);
+        assertThat(MacAddress.parse("1A2B3C4D5E6F").toString()).isEqualTo("1a-2b-3c-4d-5e-6f");
+    }
+
+    @DisplayName("Test text that is not a MAC address is rejected")
+    @Test
+    public void testRejectsInvalidText() {
+        assertThat(MacAddress.parseValue("invalid-mac-address")).isEqualTo(MacAddress.INVALID);
+        assertThat(MacAddress.parseValue("1a-2b:3c-4d-5e-6f")).isEqualTo(MacAddress.INVALID);
+        assertThat(MacAddress.parseValue("1a-2b-3c-4d-5e-6g")).isEqualTo(MacAddress.INVALID);
+        assertThat(MacAddress.parseValue("1a2b3c4d5e6")).isEqualTo(MacAddress.INVALID);
+        assertThat(MacAddress.parseValue("")).isEqualTo(MacAddress.INVALID);
+        assertThat(MacAddress.tryParse(null)).isNull();
+        assertThatThrownBy(() -> MacAddress.parse("aa-bb"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Invalid MAC address: aa-bb");
+    }
+
+    @DisplayName("Test values outside 48 bits are rejected")
+    @Test
+    public void testOfRejectsOutOfRangeValues() {
+        assertThat(MacAddress.of(0xffffffffffffL).toString()).isEqualTo("ff-ff-ff-ff-ff-ff");
+        assertThatThrownBy(() -> MacAddress.of(0x1000000000000L)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MacAddress.of(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.voxloud.provisioning.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.repository.DeviceLookup;
+import com.voxloud.provisioning.repository.DeviceRepository;
+import com.voxloud.provisioning.service.ProvisioningService;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:index-test",
+        "provisioning.index.enabled=true",
+        "provisioning.index.delta-threshold=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class InMemoryDeviceIndexTest {
+    @Autowired
+    private InMemoryDeviceIndex index;
+
+    @Autowired
+    private DeviceLookup deviceLookup;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private ProvisioningService provisioningService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DisplayName("Test the index replaces the repository lookup and holds the sample inventory")
+    @Test
+    public void testLoadsInventoryAtStartup() {
+        assertThat(deviceLookup).isSameAs(index);
+        Device device = index.findDevice(MacAddress.parse("a1-b2-c3-d4-e5-f6")).orElseThrow();
+
+        assertThat(device.getModel()).isEqualTo(Device.DeviceModel.DESK);
+        assertThat(device.getUsername()).isEqualTo("walter");
+        assertThat(device.getOverrideFragment()).contains("port=5161");
+        assertThat(index.findVersion(MacAddress.parse("f1-e2-d3-c4-b5-a6"))).isPresent();
+        assertThat(index.findDevice(MacAddress.parse("00-00-00-00-00-01"))).isEmpty();
+    }
+
+    @DisplayName("Test devices saved and deleted through the application are applied on commit")
+    @Test
+    public void testAppliesCommittedChanges() {
+        Device device = new Device();
+        device.setMacAddress(MacAddress.parse("0a-0b-0c-0d-0e-0f"));
+        device.setModel(Device.DeviceModel.DESK);
+        device.setUsername("nora");
+        deviceRepository.save(device);
+        assertThat(provisioningService.getProvisioningFile(MacAddress.parse("0a-0b-0c-0d-0e-0f"))).contains("username=nora");
+
+        Device stored = deviceRepository.findById(MacAddress.parse("0a-0b-0c-0d-0e-0f")).orElseThrow();
+        stored.setUsername("nina");
+        deviceRepository.save(stored);
+        assertThat(provisioningService.getProvisioningFile(MacAddress.parse("0a-0b-0c-0d-0e-0f"))).contains("username=nina");
+
+        deviceRepository.deleteById(MacAddress.parse("0a-0b-0c-0d-0e-0f"));
+        assertThat(index.findDevice(MacAddress.parse("0a-0b-0c-0d-0e-0f"))).isEmpty();
+    }
+
+    @DisplayName("Test rows written outside the application are picked up by polling")
+    @Test
+    public void testPollsOutOfBandWrites() {
+        jdbcTemplate.update("INSERT INTO device (mac_address, model, username, password, updated_at) "
+                + "VALUES (0x0f0e0d0c0b0a, 'CONFERENCE', 'otto', 'gold', ?)", Timestamp.from(Instant.now()));
+        index.poll();
+
+        assertThat(index.findDevice(MacAddress.parse("0f-0e-0d-0c-0b-0a")).map(Device::getUsername)).contains("otto");
+    }
+}
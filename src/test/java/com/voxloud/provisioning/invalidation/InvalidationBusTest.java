@@ -0,0 +1,129 @@
+package com.voxloud.provisioning.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.event.AllDevicesChangedEvent;
+import com.voxloud.provisioning.event.DeviceChangedEvent;
+import com.voxloud.provisioning.event.SettingsChangedEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+class InvalidationBusTest {
+    private static final MacAddress MAC_ADDRESS = MacAddress.parse("aa-bb-cc-dd-ee-ff");
+
+    private final InMemoryInvalidationTransport.Hub hub = new InMemoryInvalidationTransport.Hub();
+    private final Node first = new Node("first");
+    private final Node second = new Node("second");
+
+    @DisplayName("Test committed device changes reach the other instances as remote events")
+    @Test
+    public void testPublishesDeviceChanges() {
+        first.bus.onDeviceChanged(new DeviceChangedEvent(MAC_ADDRESS));
+
+        first.bus.poll();
+        second.bus.poll();
+
+        assertThat(second.events).containsExactly(new DeviceChangedEvent(MAC_ADDRESS, true));
+        assertThat(first.events).isEmpty();
+        assertThat(first.meterRegistry.get("provisioning.invalidation.published").tag("scope", "device")
+                .counter().count()).isEqualTo(1);
+        assertThat(second.meterRegistry.get("provisioning.invalidation.received").tag("scope", "device")
+                .counter().count()).isEqualTo(1);
+        assertThat(second.meterRegistry.get("provisioning.invalidation.lag").timer().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Test remote changes are not published again")
+    @Test
+    public void testDoesNotPublishRemoteChanges() {
+        second.bus.onDeviceChanged(new DeviceChangedEvent(MAC_ADDRESS, true));
+
+        second.bus.poll();
+        first.bus.poll();
+
+        assertThat(first.events).isEmpty();
+        assertThat(second.meterRegistry.get("provisioning.invalidation.pending").gauge().value()).isZero();
+    }
+
+    @DisplayName("Test a settings reload invalidates every device on the other instances")
+    @Test
+    public void testPublishesGlobalInvalidations() {
+        first.bus.onSettingsChanged(new SettingsChangedEvent(null));
+
+        first.bus.poll();
+        second.bus.poll();
+
+        assertThat(second.events).containsExactly(new AllDevicesChangedEvent());
+        assertThat(second.meterRegistry.get("provisioning.invalidation.received").tag("scope", "all")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @DisplayName("Test changes of one transaction are published in one batch before it commits, later ones one by one")
+    @Test
+    public void testPublishesTransactionInOneBatch() {
+        InvalidationTransport transport = mock(InvalidationTransport.class);
+        when(transport.isTransactional()).thenReturn(true);
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("transport", transport);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InvalidationBus bus = new InvalidationBus(beanFactory.getBeanProvider(InvalidationTransport.class),
+                event -> { }, meterRegistry, "node", Duration.ofMillis(500), Duration.ofHours(1), 2);
+        MacAddress other = MacAddress.parse("aa-bb-cc-dd-ee-00");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            bus.onDeviceChanged(new DeviceChangedEvent(MAC_ADDRESS));
+            bus.onDeviceChanged(new DeviceChangedEvent(other));
+            verify(transport, never()).publish(any());
+
+            TransactionExecution transaction = mock(TransactionExecution.class);
+            when(transaction.isNewTransaction()).thenReturn(true);
+            bus.beforeCommit(transaction);
+            bus.onDeviceChanged(new DeviceChangedEvent(MAC_ADDRESS));
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        ArgumentCaptor<List<Invalidation>> published = ArgumentCaptor.captor();
+        verify(transport, times(2)).publish(published.capture());
+        assertThat(published.getAllValues()).map(batch -> batch.stream().map(Invalidation::getMacAddress).toList())
+                .containsExactly(List.of(MAC_ADDRESS, other), List.of(MAC_ADDRESS));
+        assertThat(meterRegistry.get("provisioning.invalidation.published").tag("scope", "device")
+                .counter().count()).isEqualTo(3);
+        assertThat(TransactionSynchronizationManager.getResource(bus)).isNull();
+    }
+
+    private class Node {
+        private final List<Object> events = new ArrayList<>();
+        private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        private final InvalidationBus bus;
+
+        private Node(String nodeId) {
+            StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+            beanFactory.addBean("transport", new InMemoryInvalidationTransport(hub));
+            bus = new InvalidationBus(beanFactory.getBeanProvider(InvalidationTransport.class), events::add,
+                    meterRegistry, nodeId, Duration.ofMillis(500), Duration.ofHours(1), 2);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.voxloud.provisioning.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.voxloud.provisioning.cache.RenderedConfigCache;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.repository.DeviceBatchWriter;
+import com.voxloud.provisioning.repository.DeviceRepository;
+import com.voxloud.provisioning.service.ProvisioningService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:invalidation-test",
+        "provisioning.invalidation.poll-interval=1h"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class JdbcInvalidationTransportTest {
+    private static final MacAddress MAC_ADDRESS = MacAddress.parse("aa-bb-cc-dd-ee-ff");
+
+    @Autowired
+    private InvalidationBus bus;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private DeviceBatchWriter deviceBatchWriter;
+
+    @Autowired
+    private ProvisioningService provisioningService;
+
+    @Autowired
+    private RenderedConfigCache renderedConfigCache;
+
+    private static Device device(String macAddress) {
+        Device device = new Device();
+        device.setMacAddress(MacAddress.parse(macAddress));
+        device.setModel(Device.DeviceModel.DESK);
+        return device;
+    }
+
+    private JdbcInvalidationTransport otherInstance() {
+        JdbcInvalidationTransport transport = new JdbcInvalidationTransport(jdbcTemplate, Duration.ofSeconds(10));
+        transport.receive(10);
+        return transport;
+    }
+
+    @DisplayName("Test devices saved on this instance are in the change log once committed, without waiting for a poll")
+    @Test
+    public void testPublishesCommittedChanges() {
+        JdbcInvalidationTransport other = otherInstance();
+        Device device = device("5b-00-00-00-00-01");
+        deviceRepository.save(device);
+
+        assertThat(other.receive(10)).singleElement()
+                .satisfies(invalidation -> assertThat(invalidation.getMacAddress()).isEqualTo(device.getMacAddress()));
+    }
+
+    @DisplayName("Test an imported chunk writes one change log row per device in one batch")
+    @Test
+    public void testPublishesImportedChunk() {
+        JdbcInvalidationTransport other = otherInstance();
+        long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM device_invalidation", Long.class);
+
+        deviceBatchWriter.upsert(List.of(device("5b-00-00-00-00-06"), device("5b-00-00-00-00-07"),
+                device("5b-00-00-00-00-08")));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM device_invalidation", Long.class))
+                .isEqualTo(rows + 3);
+        assertThat(other.receive(10)).extracting(Invalidation::getMacAddress).containsExactly(
+                MacAddress.parse("5b-00-00-00-00-06"), MacAddress.parse("5b-00-00-00-00-07"),
+                MacAddress.parse("5b-00-00-00-00-08"));
+    }
+
+    @DisplayName("Test invalidations of a rolled back write are rolled back with it")
+    @Test
+    public void testRollsBackWithTheWrite() {
+        JdbcInvalidationTransport other = otherInstance();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            deviceBatchWriter.upsert(List.of(device("5b-00-00-00-00-04")));
+            status.setRollbackOnly();
+        });
+        deviceBatchWriter.upsert(List.of(device("5b-00-00-00-00-05")));
+
+        assertThat(other.receive(10)).extracting(Invalidation::getMacAddress)
+                .containsExactly(MacAddress.parse("5b-00-00-00-00-05"));
+    }
+
+    @DisplayName("Test invalidations from another instance drop the rendered file")
+    @Test
+    public void testAppliesRemoteInvalidations() {
+        provisioningService.getRenderedConfig(MAC_ADDRESS);
+        assertThat(renderedConfigCache.get(MAC_ADDRESS)).isNotNull();
+
+        otherInstance().publish(List.of(Invalidation.device(MAC_ADDRESS, "other")));
+        bus.poll();
+
+        assertThat(renderedConfigCache.get(MAC_ADDRESS)).isNull();
+    }
+
+    @DisplayName("Test rows committed after a row with a higher id are still received")
+    @Test
+    public void testReceivesRowsCommittedOutOfOrder() {
+        JdbcInvalidationTransport other = otherInstance();
+        JdbcInvalidationTransport publisher = new JdbcInvalidationTransport(jdbcTemplate, Duration.ofSeconds(10));
+        Invalidation late = Invalidation.device(MacAddress.parse("5b-00-00-00-00-02"), "late");
+        Invalidation early = Invalidation.device(MacAddress.parse("5b-00-00-00-00-03"), "early");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            publisher.publish(List.of(late));
+            CompletableFuture.runAsync(() -> publisher.publish(List.of(early))).join();
+
+            assertThat(CompletableFuture.supplyAsync(() -> other.receive(10)).join())
+                    .extracting(Invalidation::getOrigin).containsExactly("early");
+        });
+
+        assertThat(other.receive(10)).extracting(Invalidation::getOrigin).containsExactly("late");
+        assertThat(other.receive(10)).isEmpty();
+    }
+}
@@ -0,0 +1,129 @@
+package com.voxloud.provisioning.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.repository.DeviceRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Fires {@value #CONCURRENT_REQUESTS} concurrent boot requests at a running server with the rendered
+ * file cache and admission control disabled, so every request blocks on the database. Subclasses
+ * select the request execution mode; results are logged and written to {@code
+ * target/load-test/<mode>.txt} so the modes can be compared. Run with {@code mvn test -Pload-test}.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "provisioning.cache.max-size=0",
+        "provisioning.admission.enabled=false",
+        "server.tomcat.max-connections=" + (BootStormLoadTest.CONCURRENT_REQUESTS + 1_000),
+        "server.tomcat.accept-count=" + BootStormLoadTest.CONCURRENT_REQUESTS
+})
+abstract class BootStormLoadTest {
+    static final int CONCURRENT_REQUESTS = 10_000;
+    private static final int DEVICES = 2_000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    abstract String mode();
+
+    @DisplayName("Boot storm of concurrent provisioning requests")
+    @Test
+    void testBootStorm() throws Exception {
+        seedDevices();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+        long[] latencies = new long[CONCURRENT_REQUESTS];
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<?>> requests = new ArrayList<>(CONCURRENT_REQUESTS);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+            int index = i;
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port + "/api/v1/provisioning/" + macAddress(i % DEVICES)))
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            long sent = System.nanoTime();
+            requests.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        latencies[index] = System.nanoTime() - sent;
+                        if (error != null || response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).join();
+        long elapsed = System.nanoTime() - start;
+
+        String report = report(latencies, elapsed, failures.get());
+        log.info("Boot storm in {} mode:\n{}", mode(), report);
+        Path output = Path.of("target", "load-test", mode() + ".txt");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, report);
+
+        assertThat(failures.get()).isLessThan(CONCURRENT_REQUESTS / 100);
+    }
+
+    private void seedDevices() {
+        if (deviceRepository.count() >= DEVICES) {
+            return;
+        }
+        List<Device> devices = new ArrayList<>(DEVICES);
+        for (int i = 0; i < DEVICES; i++) {
+            Device device = new Device();
+            device.setMacAddress(MacAddress.parse(macAddress(i)));
+            device.setModel(i % 2 == 0 ? Device.DeviceModel.DESK : Device.DeviceModel.CONFERENCE);
+            device.setUsername("user" + i);
+            device.setPassword("secret" + i);
+            devices.add(device);
+        }
+        deviceRepository.saveAll(devices);
+    }
+
+    private static String macAddress(int index) {
+        return String.format("02-00-00-%02x-%02x-%02x", (index >> 16) & 0xff, (index >> 8) & 0xff, index & 0xff);
+    }
+
+    private String report(long[] latencies, long elapsedNanos, int failures) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return String.format(Locale.ROOT,
+                "mode=%s requests=%d failures=%d elapsed=%.0fms throughput=%.0f req/s "
+                        + "p50=%.1fms p99=%.1fms max=%.1fms",
+                mode(), CONCURRENT_REQUESTS, failures, elapsedNanos / 1e6,
+                CONCURRENT_REQUESTS / (elapsedNanos / 1e9),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+}
@@ -0,0 +1,11 @@
+package com.voxloud.provisioning.load;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:load-platform-threads")
+class PlatformThreadsBootStormLoadTest extends BootStormLoadTest {
+    @Override
+    String mode() {
+        return "platform-threads";
+    }
+}
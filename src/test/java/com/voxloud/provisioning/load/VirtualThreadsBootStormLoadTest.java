@@ -0,0 +1,21 @@
+package com.voxloud.provisioning.load;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+@ActiveProfiles("virtual-threads")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:load-virtual-threads")
+class VirtualThreadsBootStormLoadTest extends BootStormLoadTest {
+    @BeforeAll
+    static void requireJava21() {
+        assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21 (build with -Pjava21)");
+    }
+
+    @Override
+    String mode() {
+        return "virtual-threads";
+    }
+}
@@ -0,0 +1,114 @@
+package com.voxloud.provisioning.reactive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.voxloud.provisioning.cache.DeviceMembershipFilter;
+import com.voxloud.provisioning.cache.DeviceMembershipFilter.Membership;
+import com.voxloud.provisioning.cache.RenderedConfigCache;
+import com.voxloud.provisioning.cache.RenderedConfigSnapshot;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.metrics.ProvisioningMetrics;
+import com.voxloud.provisioning.service.ConfigVersion;
+import com.voxloud.provisioning.service.DeviceConfigRenderer;
+import com.voxloud.provisioning.service.RenderedConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+class ReactiveProvisioningServiceImplTest {
+    private static final MacAddress MAC = MacAddress.parse("aa-bb-cc-dd-ee-ff");
+
+    private ReactiveDeviceRepository reactiveDeviceRepository;
+    private DeviceConfigRenderer deviceConfigRenderer;
+    private RenderedConfigCache renderedConfigCache;
+    private RenderedConfigSnapshot renderedConfigSnapshot;
+    private DeviceMembershipFilter deviceMembershipFilter;
+    private ReactiveProvisioningServiceImpl reactiveProvisioningService;
+
+    @BeforeEach
+    void setUp() {
+        reactiveDeviceRepository = mock(ReactiveDeviceRepository.class);
+        deviceConfigRenderer = mock(DeviceConfigRenderer.class);
+        renderedConfigCache = mock(RenderedConfigCache.class);
+        renderedConfigSnapshot = mock(RenderedConfigSnapshot.class);
+        deviceMembershipFilter = mock(DeviceMembershipFilter.class);
+        reactiveProvisioningService = new ReactiveProvisioningServiceImpl(reactiveDeviceRepository,
+                deviceConfigRenderer, renderedConfigCache, renderedConfigSnapshot, deviceMembershipFilter,
+                ProvisioningMetrics.noop(), Duration.ofMillis(200));
+    }
+
+    @DisplayName("Test cached configuration is served without a database lookup")
+    @Test
+    public void testGetRenderedConfig_CacheHit() {
+        RenderedConfig cached = renderedConfig();
+        when(renderedConfigCache.get(MAC)).thenReturn(cached);
+
+        assertThat(reactiveProvisioningService.getRenderedConfig(MAC).block()).isSameAs(cached);
+        verify(reactiveDeviceRepository, never()).findById(any());
+    }
+
+    @DisplayName("Test rendered configuration is cached under the stamp taken before the lookup")
+    @Test
+    public void testGetRenderedConfig_CacheMiss() {
+        Device device = new Device();
+        device.setMacAddress(MAC);
+        RenderedConfig rendered = renderedConfig();
+        when(renderedConfigCache.stamp()).thenReturn(7L);
+        when(reactiveDeviceRepository.findById(MAC)).thenReturn(Mono.just(device));
+        when(deviceConfigRenderer.render(device)).thenReturn(rendered);
+
+        assertThat(reactiveProvisioningService.getRenderedConfig(MAC).block()).isSameAs(rendered);
+        verify(renderedConfigCache).put(MAC, rendered, 7L);
+    }
+
+    @DisplayName("Test unknown device completes empty and is remembered as missing")
+    @Test
+    public void testGetRenderedConfig_DeviceNotFound() {
+        when(deviceMembershipFilter.check(MAC)).thenReturn(Membership.POSSIBLE);
+        when(deviceMembershipFilter.stamp()).thenReturn(3L);
+        when(reactiveDeviceRepository.findById(MAC)).thenReturn(Mono.empty());
+
+        assertThat(reactiveProvisioningService.getRenderedConfig(MAC).blockOptional()).isEmpty();
+        verify(renderedConfigCache, never()).put(eq(MAC), any(), anyLong());
+        verify(deviceMembershipFilter).recordMissing(MAC, Membership.POSSIBLE, 3L);
+    }
+
+    @DisplayName("Test device known to be absent is answered without a database lookup")
+    @Test
+    public void testGetConfigVersion_KnownAbsent() {
+        when(deviceMembershipFilter.check(MAC)).thenReturn(Membership.ABSENT);
+
+        assertThat(reactiveProvisioningService.getConfigVersion(MAC).blockOptional()).isEmpty();
+        verify(reactiveDeviceRepository, never()).findVersionById(any());
+    }
+
+    @DisplayName("Test slow lookup fails with a timeout instead of waiting indefinitely")
+    @Test
+    public void testGetRenderedConfig_Timeout() {
+        when(reactiveDeviceRepository.findById(MAC)).thenReturn(Mono.never());
+
+        assertThatThrownBy(() -> reactiveProvisioningService.getRenderedConfig(MAC).block())
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    private static RenderedConfig renderedConfig() {
+        return new RenderedConfig(Device.DeviceModel.DESK, "text/plain;charset=UTF-8",
+                "username=john\n".getBytes(StandardCharsets.UTF_8),
+                new ConfigVersion("\"1\"", 0L));
+    }
+}
@@ -0,0 +1,49 @@
+package com.voxloud.provisioning.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ContentCodingTest {
+    @Test
+    @DisplayName("Gzip is negotiated when listed, through a wildcard, or in any case")
+    void gzipAccepted() {
+        assertThat(ContentCoding.negotiate("gzip")).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.negotiate("deflate, GZIP;q=0.8, br")).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.negotiate("x-gzip")).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.negotiate("*")).isEqualTo(ContentCoding.GZIP);
+        assertThat(ContentCoding.negotiate("identity;q=0, *")).isEqualTo(ContentCoding.GZIP);
+    }
+
+    @Test
+    @DisplayName("Identity is served without header, when gzip is refused or ranked below identity")
+    void identity() {
+        assertThat(ContentCoding.negotiate(null)).isEqualTo(ContentCoding.IDENTITY);
+        assertThat(ContentCoding.negotiate("")).isEqualTo(ContentCoding.IDENTITY);
+        assertThat(ContentCoding.negotiate("br, deflate")).isEqualTo(ContentCoding.IDENTITY);
+        assertThat(ContentCoding.negotiate("gzip;q=0")).isEqualTo(ContentCoding.IDENTITY);
+        assertThat(ContentCoding.negotiate("*, gzip;q=0")).isEqualTo(ContentCoding.IDENTITY);
+        assertThat(ContentCoding.negotiate("gzip;q=0.5, identity")).isEqualTo(ContentCoding.IDENTITY);
+        assertThat(ContentCoding.negotiate("gzip;q=abc")).isEqualTo(ContentCoding.IDENTITY);
+    }
+
+    @Test
+    @DisplayName("Each coding has its own strong entity tag")
+    void etags() {
+        assertThat(ContentCoding.IDENTITY.etag("\"5f3c\"")).isEqualTo("\"5f3c\"");
+        assertThat(ContentCoding.GZIP.etag("\"5f3c\"")).isEqualTo("\"5f3c-gzip\"");
+    }
+
+    @Test
+    @DisplayName("Gzip variants are only kept when smaller than the file")
+    void compressor() {
+        byte[] json = "{\"username\":\"eric\",\"password\":\"blue\",\"domain\":\"sip.voxloud.com\",\"port\":\"5060\",\"codecs\":[\"G711\",\"G729\",\"OPUS\"],\"timeout\":10,\"domain2\":\"sip.voxloud.com\"}"
+                .getBytes();
+        ConfigCompressor compressor = new ConfigCompressor(true, 9);
+
+        assertThat(compressor.gzip(json)).hasSizeLessThan(json.length).startsWith(0x1f, 0x8b);
+        assertThat(compressor.gzip("port=5060".getBytes())).isNull();
+        assertThat(new ConfigCompressor(false, 9).gzip(json)).isNull();
+    }
+}
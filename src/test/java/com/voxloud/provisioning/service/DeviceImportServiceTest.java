@@ -0,0 +1,109 @@
+package com.voxloud.provisioning.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.repository.DeviceRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:import-test",
+        "provisioning.import.chunk-size=2"
+})
+class DeviceImportServiceTest {
+    @Autowired
+    private DeviceImportService deviceImportService;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private ProvisioningService provisioningService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private List<JsonNode> importDevices(ImportFormat format, String input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        deviceImportService.importDevices(format, new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), out);
+        List<JsonNode> report = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            report.add(objectMapper.readTree(line));
+        }
+        return report;
+    }
+
+    @DisplayName("Should import CSV rows in chunks and report rejected rows with their line")
+    @Test
+    void testImportCsv() throws Exception {
+        String csv = "mac_address,model,username,password,override_fragment,group_name\r\n"
+                + "10:00:00:00:00:01,DESK,ann,secret,\"domain=sip.csv.com\nport=5161\",acme\r\n"
+                + "10-00-00-00-00-02,conference,bob,\"pa,ss\",\"{\"\"timeout\"\":20}\",\r\n"
+                + "10:00:00:00:00:03,PHONE,carl,x,,\r\n"
+                + "not-a-mac,DESK,dan,x,,\r\n"
+                + "10:00:00:00:00:05,DESK,eve,x,port=0,\r\n"
+                + "10:00:00:00:00:06,DESK,fay\r\n"
+                + "10:00:00:00:00:07,DESK,gus,x,,\r\n";
+
+        List<JsonNode> report = importDevices(ImportFormat.CSV, csv);
+
+        assertThat(report).filteredOn(record -> record.has("error"))
+                .extracting(record -> record.get("line").asInt())
+                .containsExactly(5, 6, 7, 8);
+        JsonNode summary = report.get(report.size() - 1);
+        assertThat(summary.get("done").asBoolean()).isTrue();
+        assertThat(summary.get("processed").asInt()).isEqualTo(7);
+        assertThat(summary.get("imported").asInt()).isEqualTo(3);
+        assertThat(summary.get("failed").asInt()).isEqualTo(4);
+
+        Device desk = deviceRepository.findById(MacAddress.parse("10-00-00-00-00-01")).orElseThrow();
+        assertThat(desk.getGroupName()).isEqualTo("acme");
+        assertThat(desk.getOverrideCompiled()).isNotNull();
+        assertThat(provisioningService.getProvisioningFile(desk.getMacAddress()))
+                .contains("domain=sip.csv.com", "port=5161");
+        Device conference = deviceRepository.findById(MacAddress.parse("10-00-00-00-00-02")).orElseThrow();
+        assertThat(conference.getPassword()).isEqualTo("pa,ss");
+        assertThat(conference.getGroupName()).isNull();
+        assertThat(deviceRepository.existsById(MacAddress.parse("10-00-00-00-00-03"))).isFalse();
+    }
+
+    @DisplayName("Should replace existing devices from NDJSON and bump their version")
+    @Test
+    void testImportNdjsonUpdatesExistingDevice() throws Exception {
+        MacAddress macAddress = MacAddress.parse("20-00-00-00-00-01");
+        importDevices(ImportFormat.NDJSON, "{\"macAddress\":\"200000000001\",\"model\":\"DESK\",\"username\":\"a\"}\n");
+        String before = provisioningService.getProvisioningFile(macAddress);
+        long version = deviceRepository.findById(macAddress).orElseThrow().getVersion();
+
+        List<JsonNode> report = importDevices(ImportFormat.NDJSON,
+                "{\"macAddress\":\"200000000001\",\"model\":\"DESK\",\"username\":\"b\"}\n\n{broken\n");
+
+        assertThat(report.get(0).get("line").asInt()).isEqualTo(3);
+        assertThat(report.get(0).get("error").asText()).startsWith("Invalid JSON");
+        assertThat(deviceRepository.findById(macAddress).orElseThrow().getVersion()).isEqualTo(version + 1);
+        assertThat(before).contains("username=a");
+        assertThat(provisioningService.getProvisioningFile(macAddress)).contains("username=b");
+    }
+
+    @DisplayName("Should reject a CSV file whose header names unknown columns")
+    @Test
+    void testImportCsvRejectsUnknownColumn() throws Exception {
+        List<JsonNode> report = importDevices(ImportFormat.CSV, "macAddress,model,colour\n30:00:00:00:00:01,DESK,red\n");
+
+        assertThat(report.get(0).get("error").asText()).isEqualTo("Unknown CSV column \"colour\"");
+        assertThat(report.get(report.size() - 1).get("imported").asInt()).isZero();
+    }
+}
@@ -0,0 +1,74 @@
+package com.voxloud.provisioning.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.exception.OverrideFragmentException;
+import com.voxloud.provisioning.strategy.ProvisioningStrategyFactory;
+import com.voxloud.provisioning.strategy.TemplateProvisioningStrategy;
+import com.voxloud.provisioning.template.ConfigTemplate;
+import com.voxloud.provisioning.util.CompiledOverrides;
+import com.voxloud.provisioning.util.OverrideFragmentParser;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class OverrideFragmentCompilerTest {
+    private final OverrideFragmentParser overrideFragmentParser = new OverrideFragmentParser();
+    private final OverrideFragmentCompiler compiler = new OverrideFragmentCompiler(
+            new ProvisioningStrategyFactory(List.of(new TemplateProvisioningStrategy(Device.DeviceModel.DESK,
+                    ConfigTemplate.compile("domain=${domain}\nport=${port}\ntimeout=${timeout=10}"),
+                    "text/plain", "cfg", overrideFragmentParser))),
+            overrideFragmentParser);
+
+    private static Device device(String overrideFragment) {
+        Device device = new Device();
+        device.setModel(Device.DeviceModel.DESK);
+        device.setOverrideFragment(overrideFragment);
+        return device;
+    }
+
+    @DisplayName("Should compile JSON and properties fragments to the same normalized form")
+    @Test
+    void testCompileNormalizesFormats() {
+        byte[] properties = compiler.compile(device("# site B\ntimeout = 20\r\ndomain=sip.b.com\nport=5161"));
+        byte[] json = compiler.compile(device("{\"port\": 5161, \"domain\": \"sip.b.com\", \"timeout\": 20}"));
+
+        assertThat(properties).isEqualTo(json);
+        assertThat(CompiledOverrides.decode(properties))
+                .isEqualTo(Map.of("domain", "sip.b.com", "port", "5161", "timeout", "20"));
+    }
+
+    @DisplayName("Should compile a device without override fragment to nothing")
+    @Test
+    void testCompileWithoutFragment() {
+        assertThat(compiler.compile(device(null))).isNull();
+        assertThat(compiler.compile(device(""))).isNull();
+    }
+
+    @DisplayName("Should reject keys the model's template does not read")
+    @Test
+    void testCompileRejectsUnknownKey() {
+        assertThatThrownBy(() -> compiler.compile(device("domain=sip.b.com\ncodec=G722")))
+                .isInstanceOf(OverrideFragmentException.class)
+                .hasMessageContaining("unknown key \"codec\"");
+    }
+
+    @DisplayName("Should reject ports outside 1-65535 and non-numeric timeouts")
+    @Test
+    void testCompileRejectsInvalidValues() {
+        assertThatThrownBy(() -> compiler.compile(device("port=70000")))
+                .isInstanceOf(OverrideFragmentException.class)
+                .hasMessageContaining("\"port\" must be between 1 and 65535, got 70000");
+        assertThatThrownBy(() -> compiler.compile(device("{\"timeout\": \"soon\"}")))
+                .isInstanceOf(OverrideFragmentException.class)
+                .hasMessageContaining("\"timeout\" must be a number");
+        assertThatThrownBy(() -> compiler.compile(device("{\"domain\": \"sip.b.com\\nport=1\"}")))
+                .isInstanceOf(OverrideFragmentException.class)
+                .hasMessageContaining("control character");
+    }
+}
@@ -0,0 +1,75 @@
+package com.voxloud.provisioning.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voxloud.provisioning.entity.Device;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:export-test",
+        "provisioning.export.page-size=1"
+})
+class ProvisioningExportServiceTest {
+    @Autowired
+    private ProvisioningExportService provisioningExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DisplayName("Test exporting all devices of a model as NDJSON across several pages")
+    @Test
+    public void testExportAll_NdjsonFilteredByModel() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        provisioningExportService.exportAll(Device.DeviceModel.CONFERENCE, ExportFormat.NDJSON, out);
+
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            assertThat(line).startsWith("{");
+            records.add(objectMapper.readTree(line));
+        }
+        assertThat(records).extracting(record -> record.get("macAddress").asText())
+                .contains("f1-e2-d3-c4-b5-a6", "1a-2b-3c-4d-5e-6f")
+                .isSorted();
+        assertThat(records).allMatch(record -> record.get("model").asText().equals("CONFERENCE"));
+        JsonNode config = objectMapper.readTree(records.get(0).get("config").asText());
+        assertThat(config.get("codecs").size()).isEqualTo(3);
+    }
+
+    @DisplayName("Test exporting selected devices as a ZIP archive skips unknown MAC addresses")
+    @Test
+    public void testExportDevices_ZipSkipsUnknownDevices() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        provisioningExportService.exportDevices(
+                List.of("aa-bb-cc-dd-ee-ff", "00-00-00-00-00-00", "1a-2b-3c-4d-5e-6f"), ExportFormat.ZIP, out);
+
+        List<String> entries = new ArrayList<>();
+        String deskConfig = null;
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.add(entry.getName());
+                if (entry.getName().startsWith("aa-bb-cc-dd-ee-ff")) {
+                    deskConfig = new String(zip.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        assertThat(entries).containsExactly("aa-bb-cc-dd-ee-ff.properties", "1a-2b-3c-4d-5e-6f.json");
+        assertThat(deskConfig).contains("username=john");
+    }
+}
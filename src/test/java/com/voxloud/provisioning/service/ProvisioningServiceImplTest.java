@@ -3,10 +3,17 @@ package com.voxloud.provisioning.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.voxloud.provisioning.cache.RenderedConfigCache;
 import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
 import com.voxloud.provisioning.exception.DeviceNotFoundException;
+import com.voxloud.provisioning.exception.OverrideFragmentException;
 import com.voxloud.provisioning.repository.DeviceRepository;
+import com.voxloud.provisioning.util.CompiledOverrides;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,18 +34,24 @@ class ProvisioningServiceImplTest {
     @Autowired
     private DeviceRepository deviceRepository;
 
+    @Autowired
+    private RenderedConfigCache renderedConfigCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @DisplayName("Test retrieving provisioning file for Conference device with override")
     @Test
     public void testGetProvisioningFile_ConferenceDeviceWithOverride() throws JSONException {
         Device device = new Device();
-        device.setMacAddress("1a-2b-3c-4d-5e-6f");
+        device.setMacAddress(MacAddress.parse("1a-2b-3c-4d-5e-6f"));
         device.setModel(Device.DeviceModel.CONFERENCE);
         device.setUsername("eric");
         device.setPassword("blue");
         device.setOverrideFragment("{\"domain\":\"sip.anotherdomain.com\",\"port\":\"5161\",\"timeout\":10}");
         deviceRepository.save(device);
 
-        String configFile = provisioningService.getProvisioningFile("1a-2b-3c-4d-5e-6f");
+        String configFile = provisioningService.getProvisioningFile(MacAddress.parse("1a-2b-3c-4d-5e-6f"));
 
         JSONObject jsonObject = new JSONObject(configFile);
 
@@ -57,17 +70,41 @@ class ProvisioningServiceImplTest {
         assertThat(jsonObject.getInt("timeout")).isEqualTo(10);
     }
 
+    @DisplayName("Should refuse to store a device whose override fragment violates the schema")
+    @Test
+    public void testSaveRejectsInvalidOverrideFragment() {
+        Device device = new Device();
+        device.setMacAddress(MacAddress.parse("1a-2b-3c-4d-5e-70"));
+        device.setModel(Device.DeviceModel.CONFERENCE);
+        device.setOverrideFragment("{\"port\":\"70000\"}");
+
+        assertThatThrownBy(() -> deviceRepository.save(device))
+                .isInstanceOf(OverrideFragmentException.class);
+        assertThat(deviceRepository.findById(device.getMacAddress())).isEmpty();
+    }
+
+    @DisplayName("Should store the compiled override fragment, including for seed rows")
+    @Test
+    public void testOverrideFragmentsAreCompiled() {
+        Device seeded = deviceRepository.findById(MacAddress.parse("a1-b2-c3-d4-e5-f6")).orElseThrow();
+
+        assertThat(seeded.getOverrideCompiled()).isNotNull();
+        assertThat(CompiledOverrides.decode(seeded.getOverrideCompiled()))
+                .containsEntry("domain", "sip.anotherdomain.com")
+                .containsEntry("port", "5161");
+    }
+
     @DisplayName("Test retrieving provisioning file for Desk device without override")
     @Test
     public void testGetProvisioningFile_DeskDeviceWithoutOverride() {
         Device device = new Device();
-        device.setMacAddress("aa-bb-cc-11-22-33");
+        device.setMacAddress(MacAddress.parse("aa-bb-cc-11-22-33"));
         device.setModel(Device.DeviceModel.DESK);
         device.setUsername("john");
         device.setPassword("doe");
         deviceRepository.save(device);
 
-        String configFile = provisioningService.getProvisioningFile("aa-bb-cc-11-22-33");
+        String configFile = provisioningService.getProvisioningFile(MacAddress.parse("aa-bb-cc-11-22-33"));
 
         assertThat(configFile).contains("username=john");
         assertThat(configFile).contains("password=doe");
@@ -80,13 +117,13 @@ class ProvisioningServiceImplTest {
     @Test
     public void testGetProvisioningFile_ConferenceDeviceWithoutOverride() throws JSONException {
         Device device = new Device();
-        device.setMacAddress("11-22-33-aa-bb-cc");
+        device.setMacAddress(MacAddress.parse("11-22-33-aa-bb-cc"));
         device.setModel(Device.DeviceModel.CONFERENCE);
         device.setUsername("alice");
         device.setPassword("green");
         deviceRepository.save(device);
 
-        String configFile = provisioningService.getProvisioningFile("11-22-33-aa-bb-cc");
+        String configFile = provisioningService.getProvisioningFile(MacAddress.parse("11-22-33-aa-bb-cc"));
 
         JSONObject jsonObject = new JSONObject(configFile);
 
@@ -102,7 +139,7 @@ class ProvisioningServiceImplTest {
     @DisplayName("Test retrieving provisioning file when device is not found")
     @Test
     public void testGetProvisioningFile_DeviceNotFound() {
-        assertThatThrownBy(() -> provisioningService.getProvisioningFile("00-11-22-33-44-55"))
+        assertThatThrownBy(() -> provisioningService.getProvisioningFile(MacAddress.parse("00-11-22-33-44-55")))
                 .isInstanceOf(DeviceNotFoundException.class)
                 .hasMessage("Device not found for MAC address: 00-11-22-33-44-55");
     }
@@ -111,14 +148,14 @@ class ProvisioningServiceImplTest {
     @Test
     public void testGetProvisioningFile_DeskDeviceWithOverride() {
         Device device = new Device();
-        device.setMacAddress("cc-bb-aa-11-22-33");
+        device.setMacAddress(MacAddress.parse("cc-bb-aa-11-22-33"));
         device.setModel(Device.DeviceModel.DESK);
         device.setUsername("peter");
         device.setPassword("red");
         device.setOverrideFragment("domain=sip.anotherdomain.com\nport=5161");
         deviceRepository.save(device);
 
-        String configFile = provisioningService.getProvisioningFile("cc-bb-aa-11-22-33");
+        String configFile = provisioningService.getProvisioningFile(MacAddress.parse("cc-bb-aa-11-22-33"));
 
         assertThat(configFile).contains("username=peter");
         assertThat(configFile).contains("password=red");
@@ -130,7 +167,7 @@ class ProvisioningServiceImplTest {
     @DisplayName("Test valid request for Desk device with overrideFragment")
     @Test
     public void testGetProvisioningFile_ValidDeskDevice_WithOverrideFragment() {
-        String macAddress = "aa-bb-cc-11-22-33";
+        MacAddress macAddress = MacAddress.parse("aa-bb-cc-11-22-33");
         String overrideFragment = "domain=sip.anotherdomain.com\nport=5161\ntimeout=10";
 
         Device device = new Device();
@@ -156,7 +193,7 @@ class ProvisioningServiceImplTest {
     @DisplayName("Test valid request for Conference device with overrideFragment in key=value format")
     @Test
     public void testGetProvisioningFile_ValidConferenceDevice_WithJsonFormat() {
-        String macAddress = "dd-ee-ff-11-22-33";
+        MacAddress macAddress = MacAddress.parse("dd-ee-ff-11-22-33");
         String overrideFragment = "domain=sip.anotherdomain.com\nport=5161\ntimeout=10";
 
         Device device = new Device();
@@ -173,4 +210,111 @@ class ProvisioningServiceImplTest {
         assertThat(result).contains("\"timeout\": 10");
         assertThat(result).contains("\"codecs\": [\"G711\", \"G729\", \"OPUS\"]");
     }
+
+    @DisplayName("Test repeated requests are served from the rendered file cache")
+    @Test
+    public void testGetProvisioningFile_RepeatedRequestHitsCache() {
+        Device device = new Device();
+        device.setMacAddress(MacAddress.parse("ab-cd-ef-11-22-33"));
+        device.setModel(Device.DeviceModel.DESK);
+        device.setUsername("carl");
+        device.setPassword("grey");
+        deviceRepository.save(device);
+
+        String first = provisioningService.getProvisioningFile(MacAddress.parse("ab-cd-ef-11-22-33"));
+        long hitsBefore = renderedConfigCache.stats().hitCount();
+        String second = provisioningService.getProvisioningFile(MacAddress.parse("ab-cd-ef-11-22-33"));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(renderedConfigCache.stats().hitCount()).isEqualTo(hitsBefore + 1);
+    }
+
+    @DisplayName("Test cached provisioning file is invalidated when the device is saved or deleted")
+    @Test
+    public void testGetProvisioningFile_CacheInvalidatedOnDeviceChange() {
+        Device device = new Device();
+        device.setMacAddress(MacAddress.parse("ab-cd-ef-44-55-66"));
+        device.setModel(Device.DeviceModel.DESK);
+        device.setUsername("anna");
+        device.setPassword("pink");
+        deviceRepository.save(device);
+        assertThat(provisioningService.getProvisioningFile(MacAddress.parse("ab-cd-ef-44-55-66"))).contains("port=5060");
+
+        device.setOverrideFragment("port=5161");
+        deviceRepository.save(device);
+        assertThat(provisioningService.getProvisioningFile(MacAddress.parse("ab-cd-ef-44-55-66"))).contains("port=5161");
+
+        deviceRepository.deleteById(MacAddress.parse("ab-cd-ef-44-55-66"));
+        assertThatThrownBy(() -> provisioningService.getProvisioningFile(MacAddress.parse("ab-cd-ef-44-55-66")))
+                .isInstanceOf(DeviceNotFoundException.class);
+    }
+
+    @DisplayName("Test config version matches the rendered file and changes when the device is updated")
+    @Test
+    public void testGetConfigVersion_MatchesRenderedFile() {
+        Device device = new Device();
+        device.setMacAddress(MacAddress.parse("ab-cd-ef-77-88-99"));
+        device.setModel(Device.DeviceModel.CONFERENCE);
+        device.setUsername("mike");
+        device.setPassword("black");
+        deviceRepository.save(device);
+
+        ConfigVersion uncached = provisioningService.getConfigVersion(MacAddress.parse("ab-cd-ef-77-88-99"));
+        RenderedConfig rendered = provisioningService.getRenderedConfig(MacAddress.parse("ab-cd-ef-77-88-99"));
+        assertThat(rendered.getVersion()).isEqualTo(uncached);
+
+        Device stored = deviceRepository.findById(MacAddress.parse("ab-cd-ef-77-88-99")).orElseThrow();
+        stored.setOverrideFragment("port=5161");
+        deviceRepository.save(stored);
+
+        assertThat(provisioningService.getConfigVersion(MacAddress.parse("ab-cd-ef-77-88-99")).getEtag())
+                .isNotEqualTo(uncached.getEtag());
+    }
+
+    @DisplayName("Test lookup, render and error metrics are recorded per stage")
+    @Test
+    public void testGetProvisioningFile_RecordsStageMetrics() {
+        Device device = new Device();
+        device.setMacAddress(MacAddress.parse("ab-cd-ef-aa-bb-cc"));
+        device.setModel(Device.DeviceModel.DESK);
+        device.setOverrideFragment("port=5161");
+        deviceRepository.save(device);
+        Timer render = meterRegistry.get("provisioning.render")
+                .tags("model", "DESK", "override", "properties").timer();
+        Timer lookup = meterRegistry.get("provisioning.lookup").tags("query", "device", "outcome", "found").timer();
+        Counter notFound = meterRegistry.get("provisioning.errors").tag("reason", "not_found").counter();
+        long renders = render.count();
+        long lookups = lookup.count();
+        double misses = notFound.count();
+
+        provisioningService.getProvisioningFile(MacAddress.parse("ab-cd-ef-aa-bb-cc"));
+        assertThatThrownBy(() -> provisioningService.getProvisioningFile(MacAddress.parse("ab-cd-ef-dd-ee-ff")))
+                .isInstanceOf(DeviceNotFoundException.class);
+
+        assertThat(render.count()).isEqualTo(renders + 1);
+        assertThat(lookup.count()).isEqualTo(lookups + 1);
+        assertThat(notFound.count()).isEqualTo(misses + 1);
+    }
+
+    @DisplayName("Unknown MAC addresses are rejected without a database lookup, new devices are let through")
+    @Test
+    public void testGetProvisioningFile_UnknownDeviceRejectedByMembershipFilter() {
+        Timer missing = meterRegistry.get("provisioning.lookup").tags("query", "device", "outcome", "missing").timer();
+        Counter rejected = meterRegistry.get("provisioning.lookup.rejected").tag("reason", "filter").counter();
+        long misses = missing.count();
+        double rejections = rejected.count();
+
+        assertThatThrownBy(() -> provisioningService.getProvisioningFile(MacAddress.parse("02-30-00-00-00-01")))
+                .isInstanceOf(DeviceNotFoundException.class);
+
+        assertThat(missing.count()).isEqualTo(misses);
+        assertThat(rejected.count()).isEqualTo(rejections + 1);
+
+        Device device = new Device();
+        device.setMacAddress(MacAddress.parse("02-30-00-00-00-01"));
+        device.setModel(Device.DeviceModel.DESK);
+        deviceRepository.save(device);
+
+        assertThat(provisioningService.getProvisioningFile(MacAddress.parse("02-30-00-00-00-01"))).contains("port=");
+    }
 }
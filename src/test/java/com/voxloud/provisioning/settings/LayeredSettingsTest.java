@@ -0,0 +1,123 @@
+package com.voxloud.provisioning.settings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.voxloud.provisioning.config.ProvisioningProperties;
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.event.SettingsChangedEvent;
+import com.voxloud.provisioning.template.ProvisioningSettings;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LayeredSettingsTest {
+    private static final Map<String, String> DEFAULTS =
+            Map.of("domain", "sip.voxloud.com", "port", "5060", "codecs", "G711,G729,OPUS");
+
+    @TempDir
+    Path directory;
+
+    private final List<Object> events = new ArrayList<>();
+
+    private LayeredSettings layeredSettings(ProvisioningProperties.Settings properties) {
+        return new LayeredSettings(DEFAULTS, properties, events::add, null);
+    }
+
+    @DisplayName("Should apply global, model and group layers in order of precedence")
+    @Test
+    void testLayerPrecedence() {
+        ProvisioningProperties.Settings properties = new ProvisioningProperties.Settings();
+        properties.setGlobal(Map.of("timeout", "15"));
+        properties.setModels(Map.of(Device.DeviceModel.DESK, Map.of("port", "5070", "timeout", "20")));
+        properties.setGroups(Map.of("acme", Map.of("domain", "sip.acme.com", "timeout", "30")));
+
+        LayeredSettings settings = layeredSettings(properties);
+
+        assertThat(settings.resolve(Device.DeviceModel.CONFERENCE, null).asMap())
+                .containsEntry("domain", "sip.voxloud.com").containsEntry("port", "5060")
+                .containsEntry("timeout", "15");
+        assertThat(settings.resolve(Device.DeviceModel.DESK, null).asMap())
+                .containsEntry("domain", "sip.voxloud.com").containsEntry("port", "5070")
+                .containsEntry("timeout", "20");
+        assertThat(settings.resolve(Device.DeviceModel.DESK, "acme").asMap())
+                .containsEntry("domain", "sip.acme.com").containsEntry("port", "5070")
+                .containsEntry("timeout", "30").containsEntry("codecs", "G711,G729,OPUS");
+        assertThat(settings.lastModified()).isEqualTo(Instant.EPOCH);
+    }
+
+    @DisplayName("Should merge each layer combination once and fall back to the model for unknown groups")
+    @Test
+    void testResolvedSettingsAreShared() {
+        ProvisioningProperties.Settings properties = new ProvisioningProperties.Settings();
+        properties.setGroups(Map.of("acme", Map.of("domain", "sip.acme.com")));
+
+        LayeredSettings settings = layeredSettings(properties);
+
+        ProvisioningSettings acme = settings.resolve(Device.DeviceModel.DESK, "acme");
+        assertThat(settings.resolve(Device.DeviceModel.DESK, "acme")).isSameAs(acme);
+        assertThat(settings.resolve(Device.DeviceModel.DESK, "unknown"))
+                .isSameAs(settings.resolve(Device.DeviceModel.DESK, null));
+    }
+
+    @DisplayName("Should reload the settings file and publish an event only when the layers change")
+    @Test
+    void testReloadSettingsFile() throws IOException {
+        Path file = directory.resolve("settings.properties");
+        Files.writeString(file, "global.domain=sip.example.com\nmodels.DESK.timeout=20\n");
+        Instant written = Instant.parse("2024-03-01T10:00:00Z");
+        Files.setLastModifiedTime(file, FileTime.from(written));
+        ProvisioningProperties.Settings properties = new ProvisioningProperties.Settings();
+        properties.setLocation(file);
+
+        LayeredSettings settings = layeredSettings(properties);
+        assertThat(settings.resolve(Device.DeviceModel.DESK, null).asMap())
+                .containsEntry("domain", "sip.example.com").containsEntry("timeout", "20");
+        assertThat(settings.lastModified()).isEqualTo(written);
+
+        assertThat(settings.reload()).isFalse();
+        assertThat(events).isEmpty();
+        assertThat(settings.lastModified()).isEqualTo(written);
+
+        Files.writeString(file, "global.domain=sip.example.com\ngroups.acme.domain=sip.acme.com\n");
+        Instant rewritten = written.plusSeconds(60);
+        Files.setLastModifiedTime(file, FileTime.from(rewritten));
+        assertThat(settings.reload()).isTrue();
+        assertThat(settings.lastModified()).isEqualTo(rewritten);
+
+        assertThat(settings.resolve(Device.DeviceModel.DESK, null).asMap()).doesNotContainKey("timeout");
+        assertThat(settings.resolve(Device.DeviceModel.DESK, "acme").get("domain")).isEqualTo("sip.acme.com");
+        assertThat(events).singleElement().isInstanceOf(SettingsChangedEvent.class);
+    }
+
+    @DisplayName("Should keep the current settings when the reloaded file is invalid")
+    @Test
+    void testInvalidSettingsFile() throws IOException {
+        Path file = directory.resolve("settings.properties");
+        Files.writeString(file, "global.domain=sip.example.com\n");
+        ProvisioningProperties.Settings properties = new ProvisioningProperties.Settings();
+        properties.setLocation(file);
+        LayeredSettings settings = layeredSettings(properties);
+
+        Files.writeString(file, "models.PHONE.domain=sip.other.com\n");
+
+        assertThat(settings.reload()).isFalse();
+        assertThat(settings.resolve(Device.DeviceModel.DESK, null).get("domain")).isEqualTo("sip.example.com");
+        assertThat(events).isEmpty();
+
+        Files.writeString(file, "domain=sip.other.com\n");
+        assertThatThrownBy(() -> layeredSettings(properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unknown settings key");
+    }
+}
@@ -0,0 +1,58 @@
+package com.voxloud.provisioning.strategy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.exception.UnsupportedDeviceModelException;
+import com.voxloud.provisioning.template.ConfigTemplate;
+import com.voxloud.provisioning.util.OverrideFragmentParser;
+
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ProvisioningStrategyFactoryTest {
+    private final OverrideFragmentParser overrideFragmentParser = mock(OverrideFragmentParser.class);
+
+    private ProvisioningStrategy strategy(Device.DeviceModel model) {
+        return new TemplateProvisioningStrategy(model, ConfigTemplate.compile("username=${device.username}"),
+                "text/plain", "cfg", overrideFragmentParser);
+    }
+
+    @DisplayName("Should return the same registered strategy instance for every lookup")
+    @Test
+    void testGetStrategyReturnsRegisteredInstance() {
+        ProvisioningStrategy desk = strategy(Device.DeviceModel.DESK);
+        ProvisioningStrategy conference = strategy(Device.DeviceModel.CONFERENCE);
+        ProvisioningStrategyFactory factory = new ProvisioningStrategyFactory(List.of(desk, conference));
+
+        assertThat(factory.getStrategy(Device.DeviceModel.DESK)).isSameAs(desk);
+        assertThat(factory.getStrategy(Device.DeviceModel.DESK)).isSameAs(desk);
+        assertThat(factory.getStrategy(Device.DeviceModel.CONFERENCE)).isSameAs(conference);
+    }
+
+    @DisplayName("Should reject models without a registered strategy")
+    @Test
+    void testGetStrategyRejectsUnsupportedModel() {
+        ProvisioningStrategyFactory factory = new ProvisioningStrategyFactory(
+                List.of(strategy(Device.DeviceModel.DESK)));
+
+        assertThatThrownBy(() -> factory.getStrategy(Device.DeviceModel.CONFERENCE))
+                .isInstanceOf(UnsupportedDeviceModelException.class)
+                .hasMessage("Unsupported device model: CONFERENCE");
+    }
+
+    @DisplayName("Should refuse two strategies for the same model")
+    @Test
+    void testConstructorRejectsDuplicateModels() {
+        List<ProvisioningStrategy> strategies = List.of(
+                strategy(Device.DeviceModel.DESK),
+                strategy(Device.DeviceModel.DESK));
+
+        assertThatThrownBy(() -> new ProvisioningStrategyFactory(strategies))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
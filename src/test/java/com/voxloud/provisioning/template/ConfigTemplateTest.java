@@ -0,0 +1,106 @@
+package com.voxloud.provisioning.template;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.util.OverrideFragment;
+import com.voxloud.provisioning.util.OverrideFragmentParser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class ConfigTemplateTest {
+    private final ProvisioningSettings settings = new ProvisioningSettings(
+            Map.of("domain", "sip.voxloud.com", "port", "5060", "codecs", "G711,G729,OPUS"));
+
+    private static Device device(String overrideFragment) {
+        Device device = new Device();
+        device.setModel(Device.DeviceModel.CONFERENCE);
+        device.setUsername("john");
+        device.setPassword("d\"oe");
+        device.setOverrideFragment(overrideFragment);
+        return device;
+    }
+
+    private String render(ConfigTemplate template, Device device) {
+        OverrideFragment overrides = new OverrideFragmentParser().getOverrides(device);
+        RenderBuffer buffer = new RenderBuffer(4);
+        template.render(device, overrides, settings, buffer);
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @DisplayName("Should render device fields, settings and template defaults")
+    @Test
+    void testRenderWithoutOverrides() {
+        ConfigTemplate template = ConfigTemplate.compile(
+                "user=${device.username}\ndomain=${domain}\ntimeout=${timeout=10}\n");
+
+        assertThat(render(template, device(null))).isEqualTo("user=john\ndomain=sip.voxloud.com\ntimeout=10\n");
+    }
+
+    @DisplayName("Should let override fragments replace settings but not device fields")
+    @Test
+    void testRenderWithOverrides() {
+        ConfigTemplate template = ConfigTemplate.compile("${device.username} ${domain} ${timeout=10}");
+
+        String result = render(template, device("domain=sip.anotherdomain.com\ntimeout=20\nusername=eve"));
+
+        assertThat(result).isEqualTo("john sip.anotherdomain.com 20");
+    }
+
+    @DisplayName("Should apply JSON encoders to strings and comma separated lists")
+    @Test
+    void testRenderWithJsonEncoders() {
+        ConfigTemplate template = ConfigTemplate.compile(
+                "{\"password\": \"${device.password|json}\", \"codecs\": [${codecs|json-list}]}");
+
+        assertThat(render(template, device(null)))
+                .isEqualTo("{\"password\": \"d\\\"oe\", \"codecs\": [\"G711\", \"G729\", \"OPUS\"]}");
+    }
+
+    @DisplayName("Should encode non-ASCII values as UTF-8")
+    @Test
+    void testRenderNonAsciiValues() {
+        ConfigTemplate template = ConfigTemplate.compile("name=${device.username}");
+        Device device = device(null);
+        device.setUsername("Jürgen 📞");
+
+        assertThat(render(template, device)).isEqualTo("name=Jürgen 📞");
+    }
+
+    @DisplayName("Should expose the settings a template reads")
+    @Test
+    void testSettingNames() {
+        ConfigTemplate template = ConfigTemplate.compile("${device.username}${domain}${port|json}${domain}");
+
+        assertThat(template.getSettingNames()).containsExactly("domain", "port");
+    }
+
+    @DisplayName("Should reject malformed templates at compile time")
+    @Test
+    void testCompileRejectsMalformedTemplates() {
+        assertThatThrownBy(() -> ConfigTemplate.compile("domain=${domain"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConfigTemplate.compile("${device.unknown}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConfigTemplate.compile("${codecs|xml}"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @DisplayName("Should fingerprint settings by their names and values, not by their hash codes")
+    @Test
+    void testSettingsFingerprint() {
+        ProvisioningSettings swapped = new ProvisioningSettings(Map.of("port", "domain"));
+        ProvisioningSettings original = new ProvisioningSettings(Map.of("domain", "port"));
+
+        assertThat(swapped.asMap().hashCode()).isEqualTo(original.asMap().hashCode());
+        assertThat(swapped.fingerprint()).isNotEqualTo(original.fingerprint());
+        assertThat(new ProvisioningSettings(Map.of("a", "b=c")).fingerprint())
+                .isNotEqualTo(new ProvisioningSettings(Map.of("a=b", "c")).fingerprint());
+        assertThat(new ProvisioningSettings(settings.asMap()).fingerprint()).isEqualTo(settings.fingerprint());
+    }
+}
@@ -0,0 +1,53 @@
+package com.voxloud.provisioning.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+    private static final long KEYS = 100_000;
+    private static final long PREFIX = 0x021000000000L;
+
+    @Test
+    @DisplayName("Every added key is reported as possibly present")
+    void noFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(KEYS, 0.01);
+        LongStream.range(0, KEYS).forEach(i -> filter.put(PREFIX + i));
+
+        assertThat(LongStream.range(0, KEYS).allMatch(i -> filter.mightContain(PREFIX + i))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Sequential keys keep the false positive rate near the configured one")
+    void falsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(KEYS, 0.01);
+        LongStream.range(0, KEYS).forEach(i -> filter.put(PREFIX + i));
+
+        long falsePositives = LongStream.range(KEYS, 2 * KEYS).filter(i -> filter.mightContain(PREFIX + i)).count();
+
+        assertThat((double) falsePositives / KEYS).isLessThan(0.02);
+        assertThat(filter.expectedFpp()).isBetween(0.005, 0.02);
+    }
+
+    @Test
+    @DisplayName("An empty filter contains nothing")
+    void empty() {
+        BloomFilter filter = BloomFilter.create(KEYS, 0.01);
+
+        assertThat(filter.mightContain(PREFIX)).isFalse();
+        assertThat(filter.expectedFpp()).isZero();
+    }
+
+    @Test
+    @DisplayName("False positive rates outside (0, 1) are rejected")
+    void invalidRate() {
+        assertThatThrownBy(() -> BloomFilter.create(KEYS, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BloomFilter.create(KEYS, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,34 +1,38 @@
 package com.voxloud.provisioning.util;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.voxloud.provisioning.entity.Device;
+import com.voxloud.provisioning.entity.MacAddress;
+import com.voxloud.provisioning.exception.OverrideFragmentException;
+import com.voxloud.provisioning.metrics.ProvisioningMetrics;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 @ExtendWith(MockitoExtension.class)
 class OverrideFragmentParserTest {
     @Mock
-    private ObjectMapper objectMapper;
+    private ProvisioningMetrics metrics;
 
-    @InjectMocks
     private OverrideFragmentParser overrideFragmentParser;
 
     @BeforeEach
     void setUp() {
-        MockitoAnnotations.openMocks(this);
+        overrideFragmentParser = new OverrideFragmentParser(metrics, 1000);
     }
 
     @DisplayName("Should return the correct override value when properties are provided")
@@ -133,4 +137,82 @@ class OverrideFragmentParserTest {
         assertEquals("value2", result2);
         assertEquals("value3", result3);
     }
+
+    @DisplayName("Should parse the fragment of a device only once across several lookups")
+    @Test
+    void testGetOverridesParsesFragmentOncePerDevice() {
+        Device device = new Device();
+        device.setMacAddress(MacAddress.parse("aa-bb-cc-11-22-33"));
+        device.setOverrideFragment("{\"domain\":\"sip.anotherdomain.com\"}");
+
+        overrideFragmentParser.getOverrideValue(device, "domain", "defaultValue");
+        overrideFragmentParser.getOverrideValue(device, "port", "defaultValue");
+        String result = overrideFragmentParser.getOverrideValue(device, "domain", "defaultValue");
+
+        assertEquals("sip.anotherdomain.com", result);
+        verify(metrics, times(1)).recordParse(any(), any(), anyLong());
+    }
+
+    @DisplayName("Should re-parse the fragment once the device row changes")
+    @Test
+    void testGetOverridesReparsesChangedFragment() {
+        Device device = new Device();
+        device.setMacAddress(MacAddress.parse("aa-bb-cc-11-22-33"));
+        device.setOverrideFragment("domain=sip.voxloud.com");
+        assertEquals("sip.voxloud.com", overrideFragmentParser.getOverrideValue(device, "domain", "defaultValue"));
+
+        device.setOverrideFragment("domain=sip.anotherdomain.com");
+
+        assertEquals("sip.anotherdomain.com",
+                overrideFragmentParser.getOverrideValue(device, "domain", "defaultValue"));
+    }
+
+    @DisplayName("Should accept CRLF line endings, comments and duplicate keys in properties")
+    @Test
+    void testParsePropertiesHandlesCrlfCommentsAndDuplicates() {
+        Device device = mock(Device.class);
+        when(device.getOverrideFragment())
+                .thenReturn("! legacy comment\r\ndomain=sip.voxloud.com\r\n\r\n  # port=1\rport = 5161 \r\ndomain=sip.other.com");
+
+        Map<String, String> result = overrideFragmentParser.parseOverrideFragment(device);
+
+        assertEquals(Map.of("domain", "sip.other.com", "port", "5161"), result);
+    }
+
+    @DisplayName("Should extract only the requested keys")
+    @Test
+    void testGetOverridesExtractsRequestedKeysOnly() {
+        Set<String> keys = Set.of("domain", "timeout");
+        Device properties = new Device();
+        properties.setOverrideFragment("domain=sip.other.com\nport=5161\ntimeout=20\ncustom.key=x");
+        Device json = new Device();
+        json.setOverrideFragment("{\"domain\": \"sip.other.com\", // comment\n \"nested\": {\"a\": [1, 2]},"
+                + " \"timeout\": 20, \"domain\": \"sip.last.com\"}");
+
+        assertEquals(Map.of("domain", "sip.other.com", "timeout", "20"),
+                overrideFragmentParser.getOverrides(properties, keys).asMap());
+        assertEquals(Map.of("domain", "sip.last.com", "timeout", "20"),
+                overrideFragmentParser.getOverrides(json, keys).asMap());
+    }
+
+    @DisplayName("Should report the line and column of syntax errors")
+    @Test
+    void testParseErrorsReportPosition() {
+        Device json = new Device();
+        json.setOverrideFragment("{\n  \"domain\": \"sip.other.com\",\n  port: 5161\n}");
+        Device properties = new Device();
+        properties.setOverrideFragment("domain=sip.other.com\r\n  = 5161");
+
+        OverrideFragmentException jsonError = assertThrows(OverrideFragmentException.class,
+                () -> overrideFragmentParser.parseOverrideFragment(json));
+        OverrideFragmentException propertiesError = assertThrows(OverrideFragmentException.class,
+                () -> overrideFragmentParser.parseOverrideFragment(properties));
+
+        assertEquals(3, jsonError.getLine());
+        assertEquals(4, jsonError.getColumn());
+        assertTrue(jsonError.getMessage().contains("at line 3, column 4"));
+        assertEquals(2, propertiesError.getLine());
+        assertEquals(3, propertiesError.getColumn());
+        verify(metrics, times(2)).parseError();
+    }
 }
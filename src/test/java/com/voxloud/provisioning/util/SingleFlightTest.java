@@ -0,0 +1,114 @@
+package com.voxloud.provisioning.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.voxloud.provisioning.exception.DeviceNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+    private static final int CALLERS = 8;
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger shared = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts {@value #CALLERS} concurrent callers for {@code key} and returns once all but the one
+     * running the call are waiting for it; the call itself blocks until {@code release} opens.
+     */
+    private List<Future<String>> callConcurrently(String key, CountDownLatch release, RuntimeException failure)
+            throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.execute(key, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                if (failure != null) {
+                    throw failure;
+                }
+                return "config of " + key;
+            }, shared::incrementAndGet)));
+        }
+        started.await();
+        while (shared.get() < CALLERS - 1) {
+            Thread.onSpinWait();
+        }
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @DisplayName("Should run one call for concurrent callers of the same key and share its result")
+    @Test
+    void testSharesResult() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = callConcurrently("aa-bb-cc-dd-ee-ff", release, null);
+
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("config of aa-bb-cc-dd-ee-ff");
+        }
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(shared.get()).isEqualTo(CALLERS - 1);
+
+        assertThat(singleFlight.execute("aa-bb-cc-dd-ee-ff", () -> "fresh", shared::incrementAndGet))
+                .isEqualTo("fresh");
+    }
+
+    @DisplayName("Should rethrow the exception of the shared call to every caller")
+    @Test
+    void testSharesException() throws Exception {
+        DeviceNotFoundException notFound = new DeviceNotFoundException("Device not found!");
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = callConcurrently("aa-bb-cc-dd-ee-ff", release, notFound);
+
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasCauseReference(notFound);
+        }
+        assertThat(calls.get()).isEqualTo(1);
+    }
+
+    @DisplayName("Should not make callers of other keys wait")
+    @Test
+    void testIndependentKeys() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> blocked = callConcurrently("aa-bb-cc-dd-ee-ff", release, null);
+
+        assertThat(singleFlight.execute("11-22-33-44-55-66", () -> "other", shared::incrementAndGet))
+                .isEqualTo("other");
+        assertThat(blocked).noneMatch(Future::isDone);
+
+        release.countDown();
+        assertThat(blocked.get(0).get(5, TimeUnit.SECONDS)).isEqualTo("config of aa-bb-cc-dd-ee-ff");
+    }
+}